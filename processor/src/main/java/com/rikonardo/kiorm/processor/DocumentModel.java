@@ -0,0 +1,57 @@
+package com.rikonardo.kiorm.processor;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validated description of document class, collected from its annotations.
+ */
+class DocumentModel {
+    final TypeElement type;
+    final String table;
+    final List<FieldModel> fields = new ArrayList<>();
+    boolean hasFactory;
+
+    DocumentModel(TypeElement type, String table) {
+        this.type = type;
+        this.table = table;
+    }
+
+    FieldModel find(String name) {
+        for (FieldModel field : fields)
+            if (field.name.equals(name)) return field;
+        return null;
+    }
+
+    static class FieldModel {
+        final String name;
+        final Element origin;
+        TypeMirror type;
+        TypeMirror storageType;
+        TypeMirror serializer;
+        int fixedLength = -1;
+        boolean primaryKey;
+        boolean autoIncrement;
+        String uniqueKey;
+        /**
+         * Class field, or null for computed field
+         */
+        VariableElement field;
+        ExecutableElement getter;
+        ExecutableElement setter;
+        /**
+         * True if generated code can't access field or methods directly and has to look them up at runtime
+         */
+        boolean reflective;
+
+        FieldModel(String name, Element origin) {
+            this.name = name;
+            this.origin = origin;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.rikonardo.kiorm.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Generates schema class for every {@code @Document} class, so KiORM doesn't have to parse document classes with reflection at runtime.
+ * Invalid document classes are reported as compilation errors.
+ */
+public class DocumentProcessor extends AbstractProcessor {
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(DocumentReader.DOCUMENT);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        DocumentReader reader = new DocumentReader(processingEnv);
+        SchemaWriter writer = new SchemaWriter(processingEnv);
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                DocumentModel model = reader.read((TypeElement) element);
+                if (model == null) continue;
+                try {
+                    writer.write(model);
+                } catch (IOException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Can't write schema of document class: " + e.getMessage(), element);
+                }
+            }
+        }
+        return false;
+    }
+}
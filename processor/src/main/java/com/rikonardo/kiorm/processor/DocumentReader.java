@@ -0,0 +1,248 @@
+package com.rikonardo.kiorm.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.util.Map;
+
+/**
+ * Reads document class annotations and performs the same checks as runtime document parser, reporting failures as compilation errors.
+ */
+class DocumentReader {
+    static final String DOCUMENT = "com.rikonardo.kiorm.annotations.Document";
+    private static final String FIELD = "com.rikonardo.kiorm.annotations.Field";
+    private static final String PRIMARY_KEY = "com.rikonardo.kiorm.annotations.PrimaryKey";
+    private static final String AUTO_INCREMENT = "com.rikonardo.kiorm.annotations.AutoIncrement";
+    private static final String UNIQUE = "com.rikonardo.kiorm.annotations.Unique";
+    private static final String SERIALIZER = "com.rikonardo.kiorm.annotations.Serializer";
+    private static final String FIXED = "com.rikonardo.kiorm.annotations.Fixed";
+
+    private final ProcessingEnvironment env;
+    private final Types types;
+    private boolean failed;
+
+    DocumentReader(ProcessingEnvironment env) {
+        this.env = env;
+        this.types = env.getTypeUtils();
+    }
+
+    /**
+     * @return Document model, or null if document class is invalid or schema can't be generated for it
+     */
+    DocumentModel read(TypeElement type) {
+        failed = false;
+        if (type.getKind() != ElementKind.CLASS) {
+            error("@Document can only be used on classes", type);
+            return null;
+        }
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                env.getMessager().printMessage(Diagnostic.Kind.WARNING, "Schema is not generated for private class " + type.getQualifiedName() + ", it will be parsed at runtime", type);
+                return null;
+            }
+        }
+
+        DocumentModel model = new DocumentModel(type, (String) value(annotation(type, DOCUMENT)));
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements()))
+            if (annotation(field, FIELD) != null) readField(model, field);
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements()))
+            if (annotation(method, FIELD) != null) readMethod(model, method);
+
+        boolean hasAutoIncrement = false;
+        for (DocumentModel.FieldModel field : model.fields) {
+            if (field.autoIncrement) {
+                if (hasAutoIncrement) error("@AutoIncrement should be used only on one field", field.origin);
+                hasAutoIncrement = true;
+            }
+            if (field.field == null) {
+                if (field.autoIncrement && !field.primaryKey) error("@AutoIncrement used without @PrimaryKey at field " + field.name, field.origin);
+                if (field.getter == null || field.setter == null) {
+                    error((field.getter == null ? "Setter" : "Getter") + " at field " + field.name + " does not have matching " + (field.setter == null ? "setter" : "getter"), field.origin);
+                    continue;
+                }
+                field.reflective = field.getter.getModifiers().contains(Modifier.PRIVATE) || field.setter.getModifiers().contains(Modifier.PRIVATE);
+            } else {
+                field.reflective = field.field.getModifiers().contains(Modifier.PRIVATE) || field.field.getModifiers().contains(Modifier.FINAL);
+            }
+            resolveStorageType(field);
+        }
+
+        boolean inner = type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC);
+        if (!inner && !type.getModifiers().contains(Modifier.ABSTRACT))
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements()))
+                if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE))
+                    model.hasFactory = true;
+
+        return failed ? null : model;
+    }
+
+    private void readField(DocumentModel model, VariableElement element) {
+        String name = (String) value(annotation(element, FIELD));
+        if (model.find(name) != null) {
+            error("Field " + name + " specified twice", element);
+            return;
+        }
+        DocumentModel.FieldModel field = new DocumentModel.FieldModel(name, element);
+        field.field = element;
+        field.type = element.asType();
+        readOptions(field, element);
+        if (field.autoIncrement && !field.primaryKey) error("@AutoIncrement used without @PrimaryKey at field " + name, element);
+        model.fields.add(field);
+    }
+
+    private void readMethod(DocumentModel model, ExecutableElement element) {
+        String name = (String) value(annotation(element, FIELD));
+        boolean isSetter = element.getReturnType().getKind() == TypeKind.VOID;
+        TypeMirror type;
+        if (isSetter) {
+            if (element.getParameters().size() != 1) {
+                error("Setter field must contain 1 param", element);
+                return;
+            }
+            type = element.getParameters().get(0).asType();
+        } else {
+            if (!element.getParameters().isEmpty()) {
+                error("Getter field must not contain params", element);
+                return;
+            }
+            type = element.getReturnType();
+        }
+
+        DocumentModel.FieldModel field = model.find(name);
+        if (field == null) {
+            field = new DocumentModel.FieldModel(name, element);
+            field.type = type;
+            readOptions(field, element);
+            model.fields.add(field);
+        } else {
+            if (field.field != null) {
+                error("Field " + name + " specified twice", element);
+                return;
+            }
+            if (!types.isSameType(field.type, type)) {
+                error("Getter/Setter type mismatch in field " + name, element);
+                return;
+            }
+            if (isSetter ? field.setter != null : field.getter != null) {
+                error((isSetter ? "Setter" : "Getter") + " for field " + name + " specified twice", element);
+                return;
+            }
+            DocumentModel.FieldModel options = new DocumentModel.FieldModel(name, element);
+            options.type = type;
+            readOptions(options, element);
+            field.primaryKey |= options.primaryKey;
+            field.autoIncrement |= options.autoIncrement;
+            if (field.uniqueKey == null) field.uniqueKey = options.uniqueKey;
+            if (field.serializer == null) field.serializer = options.serializer;
+            if (field.fixedLength < 0) field.fixedLength = options.fixedLength;
+        }
+        if (isSetter) field.setter = element;
+        else field.getter = element;
+    }
+
+    private void readOptions(DocumentModel.FieldModel field, Element element) {
+        field.primaryKey = annotation(element, PRIMARY_KEY) != null;
+        field.autoIncrement = annotation(element, AUTO_INCREMENT) != null;
+        AnnotationMirror unique = annotation(element, UNIQUE);
+        field.uniqueKey = unique == null ? null : (String) value(unique);
+        AnnotationMirror fixed = annotation(element, FIXED);
+        field.fixedLength = fixed == null ? -1 : (Integer) value(fixed);
+        AnnotationMirror serializer = annotation(element, SERIALIZER);
+        if (serializer == null && field.type.getKind() == TypeKind.DECLARED)
+            serializer = annotation(((DeclaredType) field.type).asElement(), SERIALIZER);
+        field.serializer = serializer == null ? null : (TypeMirror) value(serializer);
+    }
+
+    private void resolveStorageType(DocumentModel.FieldModel field) {
+        if (field.serializer == null) {
+            field.storageType = field.type;
+        } else {
+            TypeElement serializer = (TypeElement) types.asElement(field.serializer);
+            if (!hasPublicNoArgsConstructor(serializer))
+                error("Can't initialize serializer " + serializer.getQualifiedName() + ", it must have no-args constructor", field.origin);
+            ExecutableElement serialize = null, deserialize = null;
+            for (ExecutableElement method : ElementFilter.methodsIn(serializer.getEnclosedElements())) {
+                if (
+                    method.getSimpleName().contentEquals("serialize") &&
+                    method.getParameters().size() == 1 &&
+                    isSupported(method.getReturnType(), field.fixedLength >= 0) &&
+                    isAssignable(field.type, method.getParameters().get(0).asType())
+                ) serialize = method;
+            }
+            if (serialize != null) {
+                for (ExecutableElement method : ElementFilter.methodsIn(serializer.getEnclosedElements())) {
+                    if (
+                        method.getSimpleName().contentEquals("deserialize") &&
+                        method.getParameters().size() == 1 &&
+                        types.isSameType(types.erasure(method.getParameters().get(0).asType()), types.erasure(serialize.getReturnType())) &&
+                        isAssignable(method.getReturnType(), field.type)
+                    ) deserialize = method;
+                }
+            }
+            if (serialize == null || deserialize == null) {
+                error("Serializer " + serializer.getQualifiedName() + " is not compatible with type " + field.type, field.origin);
+                return;
+            }
+            field.storageType = serialize.getReturnType();
+        }
+        if (!isSupported(field.storageType, field.fixedLength >= 0))
+            error("Field type " + field.storageType + " is not supported", field.origin);
+    }
+
+    private boolean isAssignable(TypeMirror from, TypeMirror to) {
+        return types.isAssignable(types.erasure(from), types.erasure(to));
+    }
+
+    private boolean hasPublicNoArgsConstructor(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) return false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements()))
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC))
+                return true;
+        return false;
+    }
+
+    /**
+     * Mirrors storage types, supported by {@code SupportedTypes} at runtime.
+     */
+    private boolean isSupported(TypeMirror type, boolean fixed) {
+        String name = types.erasure(type).toString();
+        if (name.equals("java.lang.String") || name.equals("byte[]")) return true;
+        if (fixed) return false;
+        switch (name) {
+            case "boolean": case "java.lang.Boolean":
+            case "byte": case "java.lang.Byte":
+            case "short": case "java.lang.Short":
+            case "int": case "java.lang.Integer":
+            case "long": case "java.lang.Long":
+            case "float": case "java.lang.Float":
+            case "double": case "java.lang.Double":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors())
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(name))
+                return mirror;
+        return null;
+    }
+
+    private static Object value(AnnotationMirror mirror) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet())
+            if (entry.getKey().getSimpleName().contentEquals("value"))
+                return entry.getValue().getValue();
+        return null;
+    }
+
+    private void error(String message, Element element) {
+        failed = true;
+        env.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
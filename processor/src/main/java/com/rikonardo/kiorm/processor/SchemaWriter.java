@@ -0,0 +1,118 @@
+package com.rikonardo.kiorm.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Generates source of schema class for document model. Generated class implements {@code GeneratedSchema}
+ * and accesses document fields directly, without reflection.
+ */
+class SchemaWriter {
+    static final String SUFFIX = "_KiORMSchema";
+    private static final String ACCESSOR = "com.rikonardo.kiorm.serialization.FieldAccessor";
+
+    private final ProcessingEnvironment env;
+    private final Elements elements;
+    private final Types types;
+
+    SchemaWriter(ProcessingEnvironment env) {
+        this.env = env;
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+    }
+
+    void write(DocumentModel model) throws IOException {
+        String packageName = elements.getPackageOf(model.type).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(model.type).toString();
+        String className = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') + SUFFIX;
+        String document = types.erasure(model.type.asType()).toString();
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) source.append("package ").append(packageName).append(";\n\n");
+        source.append("/**\n * Schema of {@link ").append(document).append("}, generated by KiORM annotation processor.\n */\n");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public final class ").append(className).append(" implements com.rikonardo.kiorm.serialization.GeneratedSchema<").append(document).append("> {\n");
+        source.append("    @Override\n    public Class<").append(document).append("> getType() {\n        return ").append(document).append(".class;\n    }\n\n");
+        source.append("    @Override\n    public String getTable() {\n        return ").append(literal(model.table)).append(";\n    }\n\n");
+        source.append("    @Override\n    public java.util.function.Supplier<").append(document).append("> getFactory() {\n        return ")
+                .append(model.hasFactory ? document + "::new" : "null").append(";\n    }\n\n");
+        source.append("    @Override\n    public java.util.List<com.rikonardo.kiorm.serialization.GeneratedField> getFields() {\n");
+        source.append("        return java.util.Arrays.asList(");
+        for (int i = 0; i < model.fields.size(); i++) {
+            DocumentModel.FieldModel field = model.fields.get(i);
+            source.append(i == 0 ? "\n" : ",\n");
+            source.append("                new com.rikonardo.kiorm.serialization.GeneratedField(")
+                    .append(literal(field.name)).append(", ")
+                    .append(classLiteral(field.type)).append(", ")
+                    .append(classLiteral(field.storageType)).append(", ")
+                    .append(field.serializer == null ? "null" : "new " + types.erasure(field.serializer) + "()").append(", ")
+                    .append(field.fixedLength).append(", ")
+                    .append(field.primaryKey).append(", ")
+                    .append(field.autoIncrement).append(", ")
+                    .append(field.uniqueKey == null ? "null" : literal(field.uniqueKey)).append(", ")
+                    .append(accessor(document, field)).append(")");
+        }
+        source.append("\n        );\n    }\n}\n");
+
+        JavaFileObject file = env.getFiler().createSourceFile(packageName.isEmpty() ? className : packageName + "." + className, model.type);
+        try (Writer writer = file.openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private String accessor(String document, DocumentModel.FieldModel field) {
+        if (field.reflective) {
+            if (field.field != null)
+                return "com.rikonardo.kiorm.serialization.FieldAccessors.forField(" + document + ".class, " + literal(field.field.getSimpleName().toString()) + ")";
+            return "com.rikonardo.kiorm.serialization.FieldAccessors.forMethods(" + document + ".class, " +
+                    literal(field.getter.getSimpleName().toString()) + ", " + literal(field.setter.getSimpleName().toString()) + ", " + classLiteral(field.type) + ")";
+        }
+        String type = types.erasure(field.type).toString();
+        String target = "((" + document + ") instance)";
+        String read = field.field != null ? target + "." + field.field.getSimpleName() : target + "." + field.getter.getSimpleName() + "()";
+        String write = field.field != null ? target + "." + field.field.getSimpleName() + " = %s" : target + "." + field.setter.getSimpleName() + "(%s)";
+
+        String indent = "                    ";
+        StringBuilder source = new StringBuilder("new " + ACCESSOR + "() {\n");
+        source.append(indent).append("@Override\n").append(indent).append("public Class<?> getType() {\n")
+                .append(indent).append("    return ").append(type).append(".class;\n").append(indent).append("}\n\n");
+        source.append(indent).append("@Override\n").append(indent).append("public Object get(Object instance) {\n")
+                .append(indent).append("    return ").append(read).append(";\n").append(indent).append("}\n\n");
+        source.append(indent).append("@Override\n").append(indent).append("public void set(Object instance, Object value) {\n")
+                .append(indent).append("    ").append(String.format(write, "(" + type + ") value")).append(";\n").append(indent).append("}\n");
+        if (field.type.getKind().isPrimitive()) {
+            String suffix = Character.toUpperCase(type.charAt(0)) + type.substring(1);
+            source.append("\n");
+            source.append(indent).append("@Override\n").append(indent).append("public ").append(type).append(" get").append(suffix).append("(Object instance) {\n")
+                    .append(indent).append("    return ").append(read).append(";\n").append(indent).append("}\n\n");
+            source.append(indent).append("@Override\n").append(indent).append("public void set").append(suffix).append("(Object instance, ").append(type).append(" value) {\n")
+                    .append(indent).append("    ").append(String.format(write, "value")).append(";\n").append(indent).append("}\n");
+        }
+        source.append("                }");
+        return source.toString();
+    }
+
+    private String classLiteral(TypeMirror type) {
+        return types.erasure(type) + ".class";
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': literal.append("\\\""); break;
+                case '\\': literal.append("\\\\"); break;
+                case '\n': literal.append("\\n"); break;
+                case '\r': literal.append("\\r"); break;
+                case '\t': literal.append("\\t"); break;
+                default: literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
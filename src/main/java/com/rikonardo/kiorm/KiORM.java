@@ -1,7 +1,15 @@
 package com.rikonardo.kiorm;
 
+import com.rikonardo.kiorm.cache.CacheConfig;
+import com.rikonardo.kiorm.cache.EntityCache;
+import com.rikonardo.kiorm.cache.QueryCache;
+import com.rikonardo.kiorm.exceptions.InvalidDocumentClassException;
 import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
+import com.rikonardo.kiorm.pool.ConnectionPool;
+import com.rikonardo.kiorm.pool.PinnedDataSource;
+import com.rikonardo.kiorm.pool.PoolConfig;
 import com.rikonardo.kiorm.queries.builders.*;
+import com.rikonardo.kiorm.replication.ReplicaSet;
 import com.rikonardo.kiorm.serialization.DocumentParser;
 import com.rikonardo.kiorm.serialization.DocumentSchema;
 import com.rikonardo.kiorm.transactions.TransactionBuilder;
@@ -10,35 +18,71 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import com.rikonardo.kiorm.annotations.*;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @NoArgsConstructor
 public class KiORM {
     /**
-     * JDBC connection object.
+     * Data source, that provides connections for all queries.
      * Can be null, if this instance was created by empty constructor and {@link #connect} method haven't called.
      */
-    @Getter private Connection connection;
+    @Getter private DataSource dataSource;
+
+    /**
+     * Whether {@link #dataSource} was created by this instance and should be closed together with it.
+     */
+    private boolean ownsDataSource = false;
 
     /**
      * Table name modifier is a lambda, that called every time document class parsing happens.
      * It's return value will be used as a table name, instead of name, specified in {@link Document} annotation.
      */
-    @Setter private DocumentParser.NameModifier tableNameModifier = null;
+    @Getter @Setter private DocumentParser.NameModifier tableNameModifier = null;
 
     /**
      * Field name modifier is a lambda, that called every time document class parsing happens.
      * It's return value will be used as a field name, instead of name, specified in {@link Field} annotation.
      */
-    @Setter private DocumentParser.NameModifier fieldNameModifier = null;
+    @Getter @Setter private DocumentParser.NameModifier fieldNameModifier = null;
 
     /**
-     * Creates instance of KiORM and immediately connects to the database.
+     * Executor of {@code execAsync()} and {@code commitAsync()} calls.
+     * If not set, default executor is created on first use and shut down by {@link #close()}.
+     */
+    @Setter private Executor executor = null;
+    private ExecutorService defaultExecutor;
+    private final ReentrantLock executorLock = new ReentrantLock();
+
+    private final Map<Class<?>, EntityCache> entityCaches = new ConcurrentHashMap<>();
+
+    /**
+     * Cache of results of queries with {@code cached(ttl)}. Its size is measured in cached documents (10000 by default).
+     */
+    @Getter private final QueryCache queryCache = new QueryCache(10000);
+
+    /**
+     * Read replicas, used by {@code select}, {@code selectOne} and {@code count} queries outside transactions.
+     * Empty by default, so all queries go to {@link #dataSource}.
+     */
+    @Getter private final ReplicaSet replicas = new ReplicaSet();
+
+    /**
+     * Creates instance of KiORM and immediately connects to the database using connection pool with default settings.
      * @param jdbcString JDBC connection string
      * @throws RuntimeSQLException If unable to connect to database
      */
@@ -47,24 +91,165 @@ public class KiORM {
     }
 
     /**
-     * Connects to the database.
+     * Creates instance of KiORM and immediately connects to the database using connection pool.
+     * @param jdbcString JDBC connection string
+     * @param poolConfig Connection pool settings
+     * @throws RuntimeSQLException If unable to connect to database
+     */
+    public KiORM(String jdbcString, PoolConfig poolConfig) {
+        this.connect(jdbcString, poolConfig);
+    }
+
+    /**
+     * Creates instance of KiORM, that takes connections from external data source.
+     * @param dataSource Data source, for example connection pool from another library
+     */
+    public KiORM(DataSource dataSource) {
+        this.connect(dataSource);
+    }
+
+    /**
+     * Connects to the database using connection pool with default settings.
      * @param jdbcString JDBC connection string
      * @throws RuntimeSQLException If unable to connect to database
      */
     public void connect(String jdbcString) {
+        this.connect(jdbcString, new PoolConfig());
+    }
+
+    /**
+     * Connects to the database using connection pool.
+     * @param jdbcString JDBC connection string
+     * @param poolConfig Connection pool settings
+     * @throws RuntimeSQLException If unable to connect to database
+     */
+    public void connect(String jdbcString, PoolConfig poolConfig) {
+        ConnectionPool pool = new ConnectionPool(jdbcString, poolConfig);
+        try {
+            pool.getConnection().close();
+        } catch (SQLException e) {
+            pool.close();
+            throw new RuntimeSQLException(e);
+        }
+        this.closeDataSource();
+        this.dataSource = pool;
+        this.ownsDataSource = true;
+    }
+
+    /**
+     * Switches this instance to external data source. Data source, previously created by this instance, is closed.
+     * @param dataSource Data source, for example connection pool from another library
+     */
+    public void connect(DataSource dataSource) {
+        this.closeDataSource();
+        this.dataSource = dataSource;
+        this.ownsDataSource = false;
+    }
+
+    /**
+     * Adds read replica, connected using connection pool with default settings.
+     * @param jdbcString JDBC connection string of replica
+     * @throws RuntimeSQLException If unable to connect to replica
+     */
+    public void addReplica(String jdbcString) {
+        this.addReplica(jdbcString, new PoolConfig());
+    }
+
+    /**
+     * Adds read replica, connected using connection pool. Pool is closed together with this instance.
+     * @param jdbcString JDBC connection string of replica
+     * @param poolConfig Connection pool settings
+     * @throws RuntimeSQLException If unable to connect to replica
+     */
+    public void addReplica(String jdbcString, PoolConfig poolConfig) {
+        ConnectionPool pool = new ConnectionPool(jdbcString, poolConfig);
         try {
-            if (this.connection != null) this.connection.close();
-            this.connection = DriverManager.getConnection(jdbcString);
+            pool.getConnection().close();
         } catch (SQLException e) {
+            pool.close();
             throw new RuntimeSQLException(e);
         }
+        this.replicas.add(pool, true);
     }
 
     /**
-     * Closes database connection
+     * Adds read replica, that takes connections from external data source.
+     * @param dataSource Data source of replica
+     */
+    public void addReplica(DataSource dataSource) {
+        this.replicas.add(dataSource, false);
+    }
+
+    /**
+     * Borrows JDBC connection from the data source. Connection must be closed after use, which returns it to the pool.
+     * @return JDBC connection
+     * @throws RuntimeSQLException If unable to obtain connection
+     */
+    public Connection getConnection() {
+        try {
+            return this.dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        }
+    }
+
+    /**
+     * Returns connection, that should be used by query builder.
+     * Inside transaction it is the connection, pinned by this transaction, otherwise new connection is borrowed.
+     * @param transaction Transaction of the builder or null
+     * @return JDBC connection, that must be given back with {@link #releaseConnection}
+     * @throws RuntimeSQLException If unable to obtain connection
+     */
+    public Connection acquireConnection(TransactionBuilder transaction) {
+        return transaction != null ? transaction.getConnection() : this.getConnection();
+    }
+
+    /**
+     * Gives back connection, obtained from {@link #acquireConnection}.
+     * @param transaction Transaction of the builder or null
+     * @param connection JDBC connection
      * @throws RuntimeSQLException If a database access error occurs
      */
-    public void close() {
+    public void releaseConnection(TransactionBuilder transaction, Connection connection) {
+        if (transaction != null) return;
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        } finally {
+            this.replicas.markWrite();
+        }
+    }
+
+    /**
+     * Returns connection, that should be used by query builder, which only reads data.
+     * Inside transaction it is the connection, pinned by this transaction. Otherwise connection is borrowed from one of replicas,
+     * or from primary data source, if there are no replicas or read-your-writes window of current thread is open.
+     * @param transaction Transaction of the builder or null
+     * @return JDBC connection, that must be given back with {@link #releaseReadConnection}
+     * @throws RuntimeSQLException If unable to obtain connection
+     */
+    public Connection acquireReadConnection(TransactionBuilder transaction) {
+        if (transaction != null) return transaction.getConnection();
+        if (this.replicas.isPinnedToPrimary()) {
+            if (this.replicas.size() > 0) this.replicas.countPrimaryRead();
+            return this.getConnection();
+        }
+        try {
+            return this.replicas.getConnection();
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        }
+    }
+
+    /**
+     * Gives back connection, obtained from {@link #acquireReadConnection}.
+     * @param transaction Transaction of the builder or null
+     * @param connection JDBC connection
+     * @throws RuntimeSQLException If a database access error occurs
+     */
+    public void releaseReadConnection(TransactionBuilder transaction, Connection connection) {
+        if (transaction != null) return;
         try {
             connection.close();
         } catch (SQLException e) {
@@ -72,6 +257,60 @@ public class KiORM {
         }
     }
 
+    /**
+     * Returns executor of asynchronous queries. Unless other executor was set, on Java 21+ it runs every query
+     * in new virtual thread, and on older versions it uses cached pool of daemon threads.
+     * @return Executor
+     */
+    public Executor getExecutor() {
+        if (this.executor != null) return this.executor;
+        executorLock.lock();
+        try {
+            if (this.defaultExecutor == null)
+                this.defaultExecutor = createDefaultExecutor();
+            return this.defaultExecutor;
+        } finally {
+            executorLock.unlock();
+        }
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadFactory factory = task -> {
+                Thread thread = new Thread(task, "KiORM-async-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newCachedThreadPool(factory);
+        }
+    }
+
+    /**
+     * Closes connection pools, if they were created by this instance, including pools of replicas. External data sources are left untouched.
+     * Default executor of asynchronous queries is shut down too, already submitted queries are completed.
+     */
+    public void close() {
+        this.closeDataSource();
+        this.replicas.close();
+        executorLock.lock();
+        try {
+            if (this.defaultExecutor != null) {
+                this.defaultExecutor.shutdown();
+                this.defaultExecutor = null;
+            }
+        } finally {
+            executorLock.unlock();
+        }
+    }
+
+    private void closeDataSource() {
+        if (this.ownsDataSource && this.dataSource instanceof ConnectionPool)
+            ((ConnectionPool) this.dataSource).close();
+    }
+
     /**
      * Creates SelectBuilder to prepare {@code SELECT} query.
      * @param target Document class
@@ -108,6 +347,33 @@ public class KiORM {
         return new InsertBuilder<>(this, target, this.tableNameModifier, this.fieldNameModifier, null);
     }
 
+    /**
+     * Creates InsertAllBuilder to insert many documents with chunked statements.
+     * @param targets Document instances of the same class
+     * @return Bulk {@code INSERT} query builder
+     */
+    public <T> InsertAllBuilder<T> insertAll(Collection<T> targets) {
+        return new InsertAllBuilder<>(this, targets, this.tableNameModifier, this.fieldNameModifier, null);
+    }
+
+    /**
+     * Creates UpsertBuilder to prepare {@code INSERT ... ON DUPLICATE KEY UPDATE} query.
+     * @param target Document instance
+     * @return Upsert query builder
+     */
+    public <T> UpsertBuilder<T> upsert(T target) {
+        return new UpsertBuilder<>(this, target, this.tableNameModifier, this.fieldNameModifier, null);
+    }
+
+    /**
+     * Creates UpsertAllBuilder to upsert many documents with chunked statements.
+     * @param targets Document instances of the same class
+     * @return Bulk upsert query builder
+     */
+    public <T> UpsertAllBuilder<T> upsertAll(Collection<T> targets) {
+        return new UpsertAllBuilder<>(this, targets, this.tableNameModifier, this.fieldNameModifier, null);
+    }
+
     /**
      * Creates UpdateBuilder to prepare {@code UPDATE} query.
      * @param target Document instance
@@ -117,6 +383,15 @@ public class KiORM {
         return new UpdateInstanceBuilder<>(this, target, this.tableNameModifier, this.fieldNameModifier, null);
     }
 
+    /**
+     * Creates UpdateAllBuilder to update many documents by their primary keys with chunked statements.
+     * @param targets Document instances of the same class
+     * @return Bulk {@code UPDATE} query builder
+     */
+    public <T> UpdateAllBuilder<T> updateAll(Collection<T> targets) {
+        return new UpdateAllBuilder<>(this, targets, this.tableNameModifier, this.fieldNameModifier, null);
+    }
+
     /**
      * Creates UpdateBuilder to prepare {@code UPDATE} query.
      * @param target Document class
@@ -144,6 +419,25 @@ public class KiORM {
         return new DeleteBuilder<>(this, target, this.tableNameModifier, this.fieldNameModifier, null);
     }
 
+    /**
+     * Creates DeleteAllBuilder to delete many documents by their primary keys with chunked {@code IN} statements.
+     * @param targets Document instances of the same class
+     * @return Bulk {@code DELETE} query builder
+     */
+    public <T> DeleteAllBuilder<T> deleteAll(Collection<T> targets) {
+        return new DeleteAllBuilder<>(this, targets, this.tableNameModifier, this.fieldNameModifier, null);
+    }
+
+    /**
+     * Creates DeleteByKeysBuilder to delete documents with specified primary keys with chunked {@code IN} statements.
+     * @param target Document class
+     * @param keys Primary key values. Composite keys are passed as {@code Object[]} or {@code List} of values in order of key fields.
+     * @return Bulk {@code DELETE} query builder
+     */
+    public <T> DeleteByKeysBuilder<T> deleteByKeys(Class<T> target, Collection<?> keys) {
+        return new DeleteByKeysBuilder<>(this, target, keys, this.tableNameModifier, this.fieldNameModifier, null);
+    }
+
     /**
      * Creates TransactionBuilder.
      * @return Transaction builder
@@ -152,6 +446,49 @@ public class KiORM {
         return new TransactionBuilder(this, this.tableNameModifier, this.fieldNameModifier);
     }
 
+    /**
+     * Runs queries inside read-only transaction with consistent snapshot.
+     * All builders, created from KiORM instance, passed to the session, execute immediately on one connection
+     * and return real results, all of them see the database as it was at the start of the session.
+     * Session instance has no entity cache and its own query cache, and must not be used after session ends.
+     * @param session Lambda, that runs queries using given session instance
+     * @return Value, returned by the session
+     * @throws RuntimeSQLException If a database access error occurs
+     */
+    public <R> R readOnly(Function<KiORM, R> session) {
+        Connection connection = this.getConnection();
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("START TRANSACTION READ ONLY, WITH CONSISTENT SNAPSHOT");
+            }
+            KiORM instance = new KiORM(new PinnedDataSource(connection));
+            instance.tableNameModifier = this.tableNameModifier;
+            instance.fieldNameModifier = this.fieldNameModifier;
+            instance.executor = this.executor;
+            R result;
+            try {
+                result = session.apply(instance);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("COMMIT");
+                }
+            } catch (SQLException | RuntimeException | Error e) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ROLLBACK");
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            } finally {
+                instance.close();
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        } finally {
+            this.releaseReadConnection(null, connection);
+        }
+    }
+
     /**
      * Checks if table for specified document class exists.
      * @param target Document class
@@ -160,13 +497,15 @@ public class KiORM {
     public <T> boolean checkIfTableExists(Class<T> target) {
         try {
             DocumentSchema<T> schema = DocumentParser.schema(target, this.tableNameModifier, this.fieldNameModifier);
-            String query = "SELECT count(*) FROM information_schema.tables WHERE table_name = '" + schema.getTable() + "' AND table_schema = '" + connection.getCatalog() + "' LIMIT 1;";
-            PreparedStatement preparedStatement = this.connection.prepareStatement(query);
-            ResultSet rs = preparedStatement.executeQuery();
-            int records = 0;
-            if (rs.next())
-                records = rs.getInt(1);
-            return records > 0;
+            try (Connection connection = this.getConnection()) {
+                String query = "SELECT count(*) FROM information_schema.tables WHERE table_name = '" + schema.getTable() + "' AND table_schema = '" + connection.getCatalog() + "' LIMIT 1;";
+                try (PreparedStatement preparedStatement = connection.prepareStatement(query); ResultSet rs = preparedStatement.executeQuery()) {
+                    int records = 0;
+                    if (rs.next())
+                        records = rs.getInt(1);
+                    return records > 0;
+                }
+            }
         } catch (SQLException e) {
             throw new RuntimeSQLException(e);
         }
@@ -204,7 +543,9 @@ public class KiORM {
                         return ", CONSTRAINT `" + key + "` UNIQUE (" + uniques.stream().map(k -> "`" + k + "`").collect(Collectors.joining(", ")) + ")";
                     }).collect(Collectors.joining(""))
                     + ");";
-            this.connection.prepareStatement(query).executeUpdate();
+            try (Connection connection = this.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+                preparedStatement.executeUpdate();
+            }
         } catch (SQLException e) {
             throw new RuntimeSQLException(e);
         }
@@ -219,9 +560,64 @@ public class KiORM {
             createTable(target);
     }
 
+    /**
+     * Parses and validates schemas of specified document classes using name modifiers of this instance, so first queries don't have to.
+     * Should be called after name modifiers are set.
+     * @param targets Document classes
+     * @throws com.rikonardo.kiorm.exceptions.InvalidDocumentClassException If any of classes is not a valid document
+     */
+    public void register(Class<?>... targets) {
+        for (Class<?> target : targets)
+            DocumentParser.schema(target, tableNameModifier, fieldNameModifier);
+    }
+
+    /**
+     * Enables cache of documents of specified class with default settings. See {@link #enableEntityCache(Class, CacheConfig)}.
+     * @param target Document class
+     * @return Entity cache
+     */
+    public EntityCache enableEntityCache(Class<?> target) {
+        return this.enableEntityCache(target, new CacheConfig());
+    }
+
+    /**
+     * Enables cache of documents of specified class. {@code select} and {@code selectOne} queries, that look up document by all its
+     * primary key fields with {@code Where.eq}, are served from cache. Instance write queries invalidate their documents,
+     * while class-wide and bulk write queries clear the whole cache. Raw SQL statements don't affect cache.
+     * Previous cache of this class, if any, is replaced.
+     * @param target Document class
+     * @param config Cache settings
+     * @return Entity cache, that provides hit/miss/eviction statistics
+     * @throws InvalidDocumentClassException If document class is invalid or doesn't have primary key
+     */
+    public EntityCache enableEntityCache(Class<?> target, CacheConfig config) {
+        DocumentSchema<?> schema = DocumentParser.schema(target, this.tableNameModifier, this.fieldNameModifier);
+        if (schema.getKeyPlan() == null)
+            throw new InvalidDocumentClassException("Document must have primary key in order to be cached");
+        EntityCache cache = new EntityCache(config);
+        this.entityCaches.put(target, cache);
+        return cache;
+    }
+
+    /**
+     * Disables cache of documents of specified class and drops cached documents.
+     * @param target Document class
+     */
+    public void disableEntityCache(Class<?> target) {
+        this.entityCaches.remove(target);
+    }
+
+    /**
+     * @param target Document class
+     * @return Entity cache of specified class, or null if it is not enabled
+     */
+    public EntityCache getEntityCache(Class<?> target) {
+        return this.entityCaches.get(target);
+    }
+
     /**
      * Clears schemas cache. Once document class parsed, its schema is added to cache.
-     * You can disable cache completely by setting java property {@code "kiorm.disableDocumentSchemaCache"} to {@code "false"}.
+     * You can disable cache completely by setting java property {@code "kiorm.disableDocumentSchemaCache"} to {@code "true"}.
      */
     public static void clearSchemaCache() {
         DocumentParser.getCache().clear();
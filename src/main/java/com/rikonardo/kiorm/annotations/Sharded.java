@@ -0,0 +1,26 @@
+package com.rikonardo.kiorm.annotations;
+
+import com.rikonardo.kiorm.sharding.HashSharding;
+import com.rikonardo.kiorm.sharding.ShardFunction;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares shard key of document class, used by {@link com.rikonardo.kiorm.sharding.ShardedKiORM} to pick database of every document.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Sharded {
+    /**
+     * @return Name of shard key field
+     */
+    String key();
+
+    /**
+     * @return Sharding function, it must have no-args constructor
+     */
+    Class<? extends ShardFunction> function() default HashSharding.class;
+}
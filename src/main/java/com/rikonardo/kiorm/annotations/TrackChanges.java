@@ -0,0 +1,14 @@
+package com.rikonardo.kiorm.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Enables dirty tracking for document class. Loaded documents are snapshotted, and instance updates write only changed fields.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface TrackChanges {
+}
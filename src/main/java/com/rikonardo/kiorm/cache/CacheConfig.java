@@ -0,0 +1,17 @@
+package com.rikonardo.kiorm.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter @Setter
+public class CacheConfig {
+    /**
+     * Maximum amount of cached documents. When it is exceeded, least recently used document is evicted.
+     */
+    private int maxSize = 10000;
+
+    /**
+     * Time in milliseconds, after which cached document expires. Zero disables expiration.
+     */
+    private long ttl = 60000;
+}
@@ -0,0 +1,163 @@
+package com.rikonardo.kiorm.cache;
+
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded LRU cache of documents of one class, keyed by primary key.
+ * Documents are stored as snapshots of their storage values, so every cache hit returns new instance.
+ * Cache is populated by {@code select} and {@code selectOne} queries, that look up document by its primary key, and invalidated by write queries.
+ */
+public class EntityCache {
+    @Getter private final CacheConfig config;
+    private final long ttlNanos;
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Incremented on every invalidation. Snapshot, loaded while generation has changed, may be stale and is not cached.
+     */
+    private long generation = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EntityCache(CacheConfig config) {
+        if (config.getMaxSize() < 1) throw new IllegalArgumentException("Cache size must be at least 1");
+        this.config = config;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(config.getTtl());
+    }
+
+    /**
+     * @param key Primary key in storage form
+     * @return Cached snapshot or null
+     */
+    public Object[] get(Object key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.created > ttlNanos) {
+                entries.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Current generation, that must be passed to {@link #put} after snapshot is loaded from the database
+     */
+    public long getGeneration() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches snapshot, unless cache was invalidated since specified generation.
+     * @param key Primary key in storage form
+     * @param snapshot Storage values of document fields
+     * @param generation Generation, obtained before snapshot was loaded
+     */
+    public void put(Object key, Object[] snapshot, long generation) {
+        lock.lock();
+        try {
+            if (this.generation != generation) return;
+            entries.put(key, new Entry(snapshot, System.nanoTime()));
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (entries.size() > config.getMaxSize() && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes document with specified key.
+     * @param key Primary key in storage form
+     */
+    public void invalidate(Object key) {
+        lock.lock();
+        try {
+            generation++;
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all documents.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            generation++;
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Amount of cached documents, including expired ones, that were not accessed since expiration
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Amount of primary key lookups, served from cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Amount of primary key lookups, that were sent to the database
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Amount of documents, removed because cache was full or they were expired. Invalidations are not counted.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private static class Entry {
+        private final Object[] snapshot;
+        private final long created;
+
+        private Entry(Object[] snapshot, long created) {
+            this.snapshot = snapshot;
+            this.created = created;
+        }
+    }
+}
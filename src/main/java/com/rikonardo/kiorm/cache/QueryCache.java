@@ -0,0 +1,194 @@
+package com.rikonardo.kiorm.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded LRU cache of query results, keyed by compiled SQL and bound values.
+ * Results are populated by queries with {@code cached(ttl)} and invalidated by every write query to the same table.
+ * Size of the cache is measured in cached documents: select result weighs as many documents as it contains, but at least one.
+ */
+public class QueryCache {
+    /**
+     * Maximum total weight of cached results. When it is exceeded, least recently used results are evicted.
+     */
+    @Getter @Setter private volatile int maxSize;
+
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Incremented on every invalidation of the table. Result, loaded while generation of its table has changed, may be stale and is not cached.
+     */
+    private final Map<String, Long> generations = new HashMap<>();
+    /**
+     * Incremented when the whole cache is cleared, and added to generations of all tables.
+     */
+    private long epoch = 0;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long weight = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public QueryCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param key Query key
+     * @return Cached result or null
+     */
+    public Object get(Object key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.expires > 0) {
+                remove(key);
+                evictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param table Table, read by query
+     * @return Current generation of the table, that must be passed to {@link #put} after result is loaded from the database
+     */
+    public long getGeneration(String table) {
+        lock.lock();
+        try {
+            return epoch + generations.getOrDefault(table, 0L);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches result, unless table was invalidated since specified generation.
+     * @param table Table, read by query
+     * @param key Query key
+     * @param value Query result, that must not be changed after it is cached
+     * @param weight Amount of documents in result
+     * @param ttlNanos Time in nanoseconds, after which result expires
+     * @param generation Generation, obtained before result was loaded
+     */
+    public void put(String table, Object key, Object value, int weight, long ttlNanos, long generation) {
+        weight = Math.max(weight, 1);
+        lock.lock();
+        try {
+            if (weight > maxSize || epoch + generations.getOrDefault(table, 0L) != generation) return;
+            remove(key);
+            entries.put(key, new Entry(table, value, weight, System.nanoTime() + ttlNanos));
+            this.weight += weight;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (this.weight > maxSize && iterator.hasNext()) {
+                this.weight -= iterator.next().weight;
+                iterator.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all results of queries, that read specified table.
+     * @param table Table name
+     */
+    public void invalidate(String table) {
+        lock.lock();
+        try {
+            generations.merge(table, 1L, Long::sum);
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (!entry.table.equals(table)) continue;
+                this.weight -= entry.weight;
+                iterator.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all results.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            epoch++;
+            entries.clear();
+            this.weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(Object key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) this.weight -= entry.weight;
+    }
+
+    /**
+     * @return Amount of cached results
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Amount of cached queries, served from cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Amount of cached queries, that were sent to the database
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Amount of results, removed because cache was full or they were expired. Invalidations are not counted.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private static class Entry {
+        private final String table;
+        private final Object value;
+        private final int weight;
+        private final long expires;
+
+        private Entry(String table, Object value, int weight, long expires) {
+            this.table = table;
+            this.value = value;
+            this.weight = weight;
+            this.expires = expires;
+        }
+    }
+}
@@ -4,4 +4,8 @@ public class InvalidQueryException extends RuntimeException {
     public InvalidQueryException(String message) {
         super(message);
     }
+
+    public InvalidQueryException(String message, Exception e) {
+        super(message, e);
+    }
 }
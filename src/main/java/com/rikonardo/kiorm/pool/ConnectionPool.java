@@ -0,0 +1,216 @@
+package com.rikonardo.kiorm.pool;
+
+import lombok.Getter;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded, self-managed pool of JDBC connections.
+ * Connections are opened lazily, up to {@link PoolConfig#getMaxPoolSize()}, and returned to the pool when closed by the borrower.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+    /**
+     * Connections, returned to the pool less than this time ago, are not validated on borrow.
+     */
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final String jdbcString;
+    @Getter private final PoolConfig config;
+    private final Properties driverProperties;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService leakDetector;
+
+    final LongAdder statementCacheHits = new LongAdder();
+    final LongAdder statementCacheMisses = new LongAdder();
+
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String jdbcString, PoolConfig config) {
+        if (config.getMaxPoolSize() < 1) throw new IllegalArgumentException("Pool size must be at least 1");
+        this.jdbcString = jdbcString;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxPoolSize(), true);
+        this.driverProperties = new Properties();
+        this.driverProperties.putAll(config.getDriverProperties());
+        if (config.isUseServerPreparedStatements())
+            this.driverProperties.setProperty("useServerPrepStmts", "true");
+        if (config.getLeakDetectionTimeout() > 0) {
+            this.leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "KiORM leak detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(config.getLeakDetectionTimeout() / 2, 100);
+            this.leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.leakDetector = null;
+        }
+    }
+
+    public ConnectionPool(String jdbcString) {
+        this(jdbcString, new PoolConfig());
+    }
+
+    /**
+     * Borrows connection from the pool. Returned connection must be closed in order to give it back to the pool.
+     * @return Pooled JDBC connection
+     * @throws SQLTimeoutException If no connection became available within {@link PoolConfig#getConnectionTimeout()}
+     * @throws SQLException If pool is closed or new physical connection can't be opened
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        try {
+            if (!permits.tryAcquire(config.getConnectionTimeout(), TimeUnit.MILLISECONDS))
+                throw new SQLTimeoutException("Timed out after " + config.getConnectionTimeout() + "ms waiting for connection (pool size " + config.getMaxPoolSize() + ")");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for connection", e);
+        }
+        try {
+            PooledConnection connection = takeIdle();
+            if (connection == null)
+                connection = new PooledConnection(this, DriverManager.getConnection(jdbcString, driverProperties), config.getStatementCacheSize());
+            Connection proxy = connection.lease(leakDetector != null);
+            borrowed.add(connection);
+            return proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeIdle() {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (connection.isAlive(config.getValidationTimeout(), VALIDATION_BYPASS_NANOS)) return connection;
+            connection.closePhysical();
+        }
+        return null;
+    }
+
+    void release(PooledConnection connection) {
+        borrowed.remove(connection);
+        if (closed || !connection.reset()) connection.closePhysical();
+        else idle.offerFirst(connection);
+        permits.release();
+    }
+
+    private void detectLeaks() {
+        long now = System.nanoTime();
+        long timeout = TimeUnit.MILLISECONDS.toNanos(config.getLeakDetectionTimeout());
+        for (PooledConnection connection : borrowed) {
+            PooledConnection.Lease lease = connection.getLease();
+            if (lease == null || lease.leakReported || now - lease.getLeasedAt() < timeout) continue;
+            lease.leakReported = true;
+            LOGGER.log(Level.WARNING, "Connection was not returned to the pool within " + config.getLeakDetectionTimeout() + "ms, possible leak", lease.getTrace());
+        }
+    }
+
+    /**
+     * @return Amount of connections, currently borrowed from the pool
+     */
+    public int getActiveConnections() {
+        return borrowed.size();
+    }
+
+    /**
+     * @return Amount of open connections, currently waiting in the pool
+     */
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    /**
+     * @return Amount of prepared statements, that were taken from connections statement caches
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    /**
+     * @return Amount of prepared statements, that were not found in connections statement caches and had to be prepared
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    /**
+     * Closes all idle connections. Borrowed connections are closed once returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (leakDetector != null) leakDetector.shutdownNow();
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null)
+            connection.closePhysical();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Connection pool does not support per-connection credentials");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return DriverManager.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        DriverManager.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return LOGGER;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        throw new SQLException("Connection pool is not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
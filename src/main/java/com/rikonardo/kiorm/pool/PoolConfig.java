@@ -0,0 +1,46 @@
+package com.rikonardo.kiorm.pool;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Properties;
+
+@Getter @Setter
+public class PoolConfig {
+    /**
+     * Maximum amount of physical connections, that pool can open at the same time.
+     */
+    private int maxPoolSize = 10;
+
+    /**
+     * Time in milliseconds, that thread will wait for free connection before {@link ConnectionPool#getConnection()} fails.
+     */
+    private long connectionTimeout = 30000;
+
+    /**
+     * Timeout in seconds, passed to {@link java.sql.Connection#isValid} when idle connection is validated before reuse.
+     */
+    private int validationTimeout = 5;
+
+    /**
+     * Time in milliseconds, after which borrowed and not returned connection is reported as possible leak.
+     * Zero disables leak detection.
+     */
+    private long leakDetectionTimeout = 0;
+
+    /**
+     * Maximum amount of prepared statements, cached by every connection. Zero disables statement caching.
+     */
+    private int statementCacheSize = 64;
+
+    /**
+     * Enables server-side prepared statements in MySQL driver ({@code useServerPrepStmts}),
+     * so cached statements are parsed by the server only once.
+     */
+    private boolean useServerPreparedStatements = false;
+
+    /**
+     * Additional properties, passed to JDBC driver when opening physical connections.
+     */
+    private Properties driverProperties = new Properties();
+}
@@ -0,0 +1,119 @@
+package com.rikonardo.kiorm.pool;
+
+import lombok.Getter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Physical connection, owned by {@link ConnectionPool}.
+ * Every lease hands out new proxy, which returns connection to the pool on {@link Connection#close()}.
+ */
+class PooledConnection {
+    private final ConnectionPool pool;
+    @Getter private final Connection physical;
+    private final StatementCache statementCache;
+
+    private volatile Lease lease;
+    private long returnedAt = System.nanoTime();
+
+    PooledConnection(ConnectionPool pool, Connection physical, int statementCacheSize) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statementCache = statementCacheSize > 0 ? new StatementCache(pool, statementCacheSize) : null;
+    }
+
+    Connection lease(boolean traceLeaks) {
+        Lease lease = new Lease(traceLeaks ? new Exception("Connection was borrowed here") : null);
+        this.lease = lease;
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, lease);
+    }
+
+    Lease getLease() {
+        return lease;
+    }
+
+    boolean isAlive(int validationTimeout, long bypassNanos) {
+        try {
+            if (System.nanoTime() - returnedAt < bypassNanos) return !physical.isClosed();
+            return physical.isValid(validationTimeout);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Restores connection state, that could be changed by the borrower.
+     * @return false if connection is broken and should be discarded
+     */
+    boolean reset() {
+        try {
+            if (statementCache != null) statementCache.reset();
+            if (physical.isClosed()) return false;
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            returnedAt = System.nanoTime();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysical() {
+        if (statementCache != null) statementCache.clear();
+        try {
+            physical.close();
+        } catch (SQLException ignored) { }
+    }
+
+    class Lease implements InvocationHandler {
+        @Getter private final long leasedAt = System.nanoTime();
+        @Getter private final Exception trace;
+        private volatile boolean returned = false;
+        boolean leakReported = false;
+
+        private Lease(Exception trace) {
+            this.trace = trace;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+            }
+            if (returned) throw new SQLException("Connection is closed");
+            if (statementCache != null && method.getName().equals("prepareStatement")) {
+                Class<?>[] params = method.getParameterTypes();
+                if (params.length == 1)
+                    return statementCache.prepare(physical, (Connection) proxy, (String) args[0], Statement.NO_GENERATED_KEYS);
+                if (params.length == 2 && params[1] == int.class)
+                    return statementCache.prepare(physical, (Connection) proxy, (String) args[0], (int) args[1]);
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.rikonardo.kiorm.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LRU cache of prepared statements, that belongs to one physical connection.
+ * Statements are keyed by SQL string and generated keys flag. Closing cached statement returns it to the cache instead.
+ */
+class StatementCache {
+    private final ConnectionPool pool;
+    private final int size;
+    private final LinkedHashMap<Key, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    StatementCache(ConnectionPool pool, int size) {
+        this.pool = pool;
+        this.size = size;
+    }
+
+    PreparedStatement prepare(Connection physical, Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        lock.lock();
+        try {
+            CachedStatement cached = statements.get(key);
+            if (cached != null && !cached.inUse) {
+                cached.inUse = true;
+                cached.owner = owner;
+                pool.statementCacheHits.increment();
+                return cached.proxy;
+            }
+            pool.statementCacheMisses.increment();
+            PreparedStatement statement = physical.prepareStatement(sql, autoGeneratedKeys);
+            if (cached != null) return statement;
+            cached = new CachedStatement(statement);
+            cached.inUse = true;
+            cached.owner = owner;
+            statements.put(key, cached);
+            evict();
+            return cached.proxy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict() {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (statements.size() > size && iterator.hasNext()) {
+            CachedStatement eldest = iterator.next();
+            iterator.remove();
+            eldest.evicted = true;
+            if (!eldest.inUse) eldest.closePhysical();
+        }
+    }
+
+    /**
+     * Marks all statements as free. Called when connection is returned to the pool.
+     */
+    void reset() {
+        lock.lock();
+        try {
+            for (CachedStatement statement : statements.values())
+                if (statement.inUse) {
+                    statement.inUse = false;
+                    statement.clear();
+                }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        List<CachedStatement> removed;
+        lock.lock();
+        try {
+            removed = new ArrayList<>(statements.values());
+            statements.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (CachedStatement statement : removed)
+            statement.closePhysical();
+    }
+
+    private void giveBack(CachedStatement statement) {
+        boolean close;
+        lock.lock();
+        try {
+            if (!statement.inUse) return;
+            statement.inUse = false;
+            close = statement.evicted;
+        } finally {
+            lock.unlock();
+        }
+        if (close) statement.closePhysical();
+        else statement.clear();
+    }
+
+    private class CachedStatement implements InvocationHandler {
+        private final PreparedStatement physical;
+        private final PreparedStatement proxy;
+        private Connection owner;
+        private boolean inUse = false;
+        private boolean evicted = false;
+
+        private CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    giveBack(this);
+                    return null;
+                case "isClosed":
+                    return !inUse || physical.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + physical + "]";
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void clear() {
+            try {
+                physical.clearParameters();
+                physical.clearBatch();
+            } catch (SQLException ignored) { }
+        }
+
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException ignored) { }
+        }
+    }
+
+    private static class Key {
+        private final String sql;
+        private final int autoGeneratedKeys;
+
+        private Key(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return autoGeneratedKeys == key.autoGeneratedKeys && sql.equals(key.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, autoGeneratedKeys);
+        }
+    }
+}
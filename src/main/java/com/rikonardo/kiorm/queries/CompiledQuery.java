@@ -0,0 +1,107 @@
+package com.rikonardo.kiorm.queries;
+
+import com.rikonardo.kiorm.exceptions.InvalidQueryException;
+import com.rikonardo.kiorm.queries.api.Param;
+import com.rikonardo.kiorm.serialization.SerializerMiddleware;
+import com.rikonardo.kiorm.serialization.SupportedTypes;
+import lombok.Getter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable SQL query together with binders for all its placeholders.
+ * Constant values are resolved to their storage types once, {@link Param} placeholders are bound from arguments array,
+ * which is indexed in order of {@link #getParameters()}.
+ */
+public final class CompiledQuery {
+    public static final Object[] NO_ARGS = new Object[0];
+
+    @Getter private final String sql;
+    /**
+     * Bound values in storage form. {@link Param} placeholders are included as is.
+     */
+    @Getter private final List<Object> values;
+    private final Binder[] binders;
+    private final String[] parameters;
+
+    public CompiledQuery(String sql, List<Object> values) {
+        this.sql = sql;
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+        this.binders = new Binder[values.size()];
+        List<String> parameters = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            if (value instanceof Param) {
+                Param param = (Param) value;
+                int slot = parameters.indexOf(param.getName());
+                if (slot < 0) {
+                    slot = parameters.size();
+                    parameters.add(param.getName());
+                }
+                this.binders[i] = parameterBinder(i + 1, slot, param.getSerializer());
+            } else {
+                this.binders[i] = constantBinder(i + 1, value);
+            }
+        }
+        this.parameters = parameters.toArray(new String[0]);
+    }
+
+    /**
+     * @return Names of placeholders in order, in which their values are expected in arguments array
+     */
+    public List<String> getParameters() {
+        return Collections.unmodifiableList(Arrays.asList(this.parameters));
+    }
+
+    public int getParameterIndex(String name) {
+        for (int i = 0; i < this.parameters.length; i++)
+            if (this.parameters[i].equals(name)) return i;
+        throw new InvalidQueryException("Query does not have parameter " + name);
+    }
+
+    /**
+     * Binds values of query without placeholders.
+     * @param preparedStatement Statement, prepared from {@link #getSql()}
+     * @throws InvalidQueryException If query contains placeholders
+     */
+    public void bind(PreparedStatement preparedStatement) throws SQLException {
+        if (this.parameters.length != 0)
+            throw new InvalidQueryException("Query contains unbound parameters " + Arrays.toString(this.parameters) + ", use prepare() to create query template");
+        bind(preparedStatement, NO_ARGS);
+    }
+
+    public void bind(PreparedStatement preparedStatement, Object[] args) throws SQLException {
+        for (Binder binder : this.binders)
+            binder.bind(preparedStatement, args);
+    }
+
+    private static Binder constantBinder(int index, Object value) {
+        if (value == null) return (s, args) -> s.setObject(index, null);
+        SupportedTypes.SupportedType type = SupportedTypes.getAnyFieldType(value.getClass());
+        if (type == null) throw new InvalidQueryException("Query contains value of unsupported type " + value.getClass().getName());
+        return (s, args) -> type.write(s, index, value);
+    }
+
+    private static Binder parameterBinder(int index, int slot, SerializerMiddleware serializer) {
+        return (s, args) -> {
+            Object value = serializer == null ? args[slot] : serializer.serialize(args[slot]);
+            if (value == null) {
+                s.setObject(index, null);
+                return;
+            }
+            SupportedTypes.SupportedType type = serializer == null ? SupportedTypes.getAnyFieldType(value.getClass()) : serializer.getStorageType();
+            if (type == null) throw new InvalidQueryException("Query contains value of unsupported type " + value.getClass().getName());
+            type.write(s, index, value);
+        };
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement s, Object[] args) throws SQLException;
+    }
+}
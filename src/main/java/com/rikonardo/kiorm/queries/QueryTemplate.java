@@ -0,0 +1,102 @@
+package com.rikonardo.kiorm.queries;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.exceptions.InvalidQueryException;
+import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
+import lombok.Getter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Reusable query, compiled once by {@code prepare()} method of query builder.
+ * Template is immutable and can be shared between threads, every execution only binds values and runs the statement.
+ * @param <R> Query result type
+ */
+public class QueryTemplate<R> {
+    private final KiORM db;
+    @Getter private final CompiledQuery query;
+    private final Executor<R> executor;
+    /**
+     * Whether query only reads data, so it can be executed on replica
+     */
+    private final boolean readOnly;
+
+    /**
+     * Creates template of write query, which is always executed on primary database.
+     */
+    public QueryTemplate(KiORM db, CompiledQuery query, Executor<R> executor) {
+        this(db, query, executor, false);
+    }
+
+    /**
+     * @param readOnly Whether query only reads data. Read queries are executed on replicas, if there are any, see {@link KiORM#acquireReadConnection}
+     */
+    public QueryTemplate(KiORM db, CompiledQuery query, Executor<R> executor, boolean readOnly) {
+        this.db = db;
+        this.query = query;
+        this.executor = executor;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Starts new execution and binds value to the parameter.
+     * @param name Parameter name
+     * @param value Parameter value
+     * @return Call, which collects parameter values
+     */
+    public Call with(String name, Object value) {
+        return new Call().with(name, value);
+    }
+
+    public R exec(Map<String, Object> params) {
+        Call call = new Call();
+        for (Map.Entry<String, Object> entry : params.entrySet())
+            call.with(entry.getKey(), entry.getValue());
+        return call.exec();
+    }
+
+    public R exec() {
+        return new Call().exec();
+    }
+
+    private R exec(Object[] args) {
+        Connection connection = readOnly ? db.acquireReadConnection(null) : db.acquireConnection(null);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query.getSql())) {
+            query.bind(preparedStatement, args);
+            return executor.execute(preparedStatement);
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        } finally {
+            if (readOnly) db.releaseReadConnection(null, connection);
+            else db.releaseConnection(null, connection);
+        }
+    }
+
+    public class Call {
+        private final Object[] args = new Object[query.getParameters().size()];
+        private final boolean[] bound = new boolean[args.length];
+
+        private Call() { }
+
+        public Call with(String name, Object value) {
+            int index = query.getParameterIndex(name);
+            args[index] = value;
+            bound[index] = true;
+            return this;
+        }
+
+        public R exec() {
+            for (int i = 0; i < bound.length; i++)
+                if (!bound[i]) throw new InvalidQueryException("Parameter " + query.getParameters().get(i) + " is not bound");
+            return QueryTemplate.this.exec(args);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Executor<R> {
+        R execute(PreparedStatement preparedStatement) throws SQLException;
+    }
+}
@@ -0,0 +1,32 @@
+package com.rikonardo.kiorm.queries.api;
+
+import com.rikonardo.kiorm.serialization.SerializerMiddleware;
+import lombok.Getter;
+
+/**
+ * Named placeholder, that can be used instead of value in {@link Where} clauses and {@code UpdateBuilder.set()}.
+ * Queries with placeholders can't be executed directly, they should be turned into template by {@code prepare()}
+ * and executed with values, bound by name.
+ */
+public final class Param {
+    @Getter private final String name;
+    @Getter private final SerializerMiddleware serializer;
+
+    private Param(String name, SerializerMiddleware serializer) {
+        this.name = name;
+        this.serializer = serializer;
+    }
+
+    public static Param of(String name) {
+        return new Param(name, null);
+    }
+
+    /**
+     * Creates copy of this placeholder, which values are serialized by serializer of the field it is compared with.
+     * @param serializer Field serializer
+     * @return Placeholder with the same name
+     */
+    public Param withSerializer(SerializerMiddleware serializer) {
+        return new Param(this.name, serializer);
+    }
+}
@@ -46,4 +46,7 @@ public class Where {
     public static AbstractQueryWhere like(String field, String template) {
         return new QueryWhereLike(field, template);
     }
+    public static AbstractQueryWhere like(String field, Param template) {
+        return new QueryWhereLike(field, template);
+    }
 }
@@ -0,0 +1,163 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.cache.EntityCache;
+import com.rikonardo.kiorm.cache.QueryCache;
+import com.rikonardo.kiorm.queries.AbstractQueryWhere;
+import com.rikonardo.kiorm.queries.CompiledQuery;
+import com.rikonardo.kiorm.queries.api.Param;
+import com.rikonardo.kiorm.queries.parts.where.QueryWhereAnd;
+import com.rikonardo.kiorm.queries.parts.where.QueryWhereEquals;
+import com.rikonardo.kiorm.serialization.DocumentParser;
+import com.rikonardo.kiorm.serialization.DocumentSchema;
+import com.rikonardo.kiorm.transactions.TransactionBuilder;
+import lombok.experimental.UtilityClass;
+
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps entity and query caches of {@link KiORM} instance in sync with queries of builders.
+ * Entity cache keys are storage values of primary key fields: single value, or list of values for composite keys.
+ * Query cache keys are lists of SQL string and bound values.
+ */
+@UtilityClass
+class Caching {
+    /**
+     * Resolves primary key, looked up by where clause. Only equality conditions on all primary key fields and nothing else are recognized.
+     * @return Cache key, or null if where clause is not a primary key lookup
+     */
+    static Object lookupKey(DocumentSchema<?> schema, AbstractQueryWhere where) {
+        Map<String, Object> values = new HashMap<>();
+        if (!collectEquals(schema, where, values)) return null;
+        List<Object> key = new ArrayList<>();
+        for (DocumentParser.DocumentField field : schema.getFields()) {
+            if (!field.isPrimaryKey()) continue;
+            if (!values.containsKey(field.getName())) return null;
+            key.add(normalize(values.remove(field.getName())));
+        }
+        if (key.isEmpty() || !values.isEmpty()) return null;
+        return key.size() == 1 ? key.get(0) : key;
+    }
+
+    private static boolean collectEquals(DocumentSchema<?> schema, AbstractQueryWhere where, Map<String, Object> values) {
+        if (where instanceof QueryWhereAnd) {
+            for (AbstractQueryWhere part : ((QueryWhereAnd) where).getQueries())
+                if (!collectEquals(schema, part, values)) return false;
+            return true;
+        }
+        if (!(where instanceof QueryWhereEquals)) return false;
+        QueryWhereEquals equals = (QueryWhereEquals) where;
+        if (equals.getValue() == null || equals.getValue() instanceof Param) return false;
+        String name = schema.toStorageFieldName(equals.getField());
+        return values.put(name, schema.toStorageFieldValue(equals.getField(), equals.getValue())) == null;
+    }
+
+    /**
+     * @return Cache key of document instance
+     */
+    static Object key(DocumentSchema<?> schema, Object instance) throws InvocationTargetException, IllegalAccessException {
+        List<Object> key = new ArrayList<>();
+        for (DocumentParser.DocumentField field : schema.getFields())
+            if (field.isPrimaryKey())
+                key.add(normalize(field.getSerializer().serialize(field.read(instance))));
+        return key.size() == 1 ? key.get(0) : key;
+    }
+
+    /**
+     * @return Query cache key, or null if query has unbound parameters
+     */
+    static Object resultKey(CompiledQuery query) {
+        List<Object> key = new ArrayList<>(query.getValues().size() + 1);
+        key.add(query.getSql());
+        for (Object value : query.getValues()) {
+            if (value instanceof Param) return null;
+            key.add(value instanceof byte[] ? ByteBuffer.wrap(((byte[]) value).clone()) : value);
+        }
+        return key;
+    }
+
+    /**
+     * Makes values, that are equal in the database, equal in cache: integer numbers are widened to long, and binary values are compared by content.
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+            return ((Number) value).longValue();
+        if (value instanceof byte[])
+            return ByteBuffer.wrap(((byte[]) value).clone());
+        return value;
+    }
+
+    /**
+     * @return Cache of schema's document class, if primary key lookups of this builder may use it, otherwise null
+     */
+    static EntityCache lookupCache(KiORM db, DocumentSchema<?> schema, TransactionBuilder transaction) {
+        return transaction == null ? db.getEntityCache(schema.getType()) : null;
+    }
+
+    /**
+     * @return Query cache, if results of this builder should be cached, otherwise null
+     */
+    static QueryCache resultCache(KiORM db, Duration ttl, TransactionBuilder transaction) {
+        return ttl != null && transaction == null ? db.getQueryCache() : null;
+    }
+
+    /**
+     * Checked before read, which result is going to be cached. Reads of lagging replicas, started soon after a write,
+     * may return rows, that were already invalidated, so their results are not stored.
+     * @return true if result of read, that starts now, can be stored in cache
+     */
+    static boolean storable(KiORM db) {
+        return !db.getReplicas().mayServeStale();
+    }
+
+    /**
+     * Invalidates cached documents and query results, written by query. Inside transaction, they are invalidated again after its completion.
+     */
+    static void invalidate(KiORM db, DocumentSchema<?> schema, Collection<?> instances, TransactionBuilder transaction) {
+        EntityCache cache = db.getEntityCache(schema.getType());
+        if (cache == null) {
+            invalidateResults(db, schema, transaction);
+            return;
+        }
+        try {
+            List<Object> keys = new ArrayList<>();
+            for (Object instance : instances)
+                keys.add(key(schema, instance));
+            Runnable invalidation = () -> {
+                for (Object key : keys) cache.invalidate(key);
+            };
+            invalidation.run();
+            if (transaction != null) transaction.afterCompletion(invalidation);
+            invalidateResults(db, schema, transaction);
+        } catch (InvocationTargetException | IllegalAccessException | RuntimeException e) {
+            invalidateAll(db, schema, transaction);
+        }
+    }
+
+    /**
+     * Clears cached documents of schema's document class and query results, when written rows are not known.
+     * Inside transaction, they are cleared again after its completion.
+     */
+    static void invalidateAll(KiORM db, DocumentSchema<?> schema, TransactionBuilder transaction) {
+        EntityCache cache = db.getEntityCache(schema.getType());
+        if (cache != null) {
+            cache.clear();
+            if (transaction != null) transaction.afterCompletion(cache::clear);
+        }
+        invalidateResults(db, schema, transaction);
+    }
+
+    private static void invalidateResults(KiORM db, DocumentSchema<?> schema, TransactionBuilder transaction) {
+        QueryCache cache = db.getQueryCache();
+        String table = schema.getTable();
+        cache.invalidate(table);
+        if (transaction != null) transaction.afterCompletion(() -> cache.invalidate(table));
+    }
+}
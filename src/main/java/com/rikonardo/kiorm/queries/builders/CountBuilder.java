@@ -1,19 +1,23 @@
 package com.rikonardo.kiorm.queries.builders;
 
 import com.rikonardo.kiorm.KiORM;
-import com.rikonardo.kiorm.exceptions.InvalidQueryException;
+import com.rikonardo.kiorm.cache.QueryCache;
 import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
 import com.rikonardo.kiorm.queries.AbstractQueryWhere;
+import com.rikonardo.kiorm.queries.CompiledQuery;
+import com.rikonardo.kiorm.queries.QueryTemplate;
 import com.rikonardo.kiorm.serialization.DocumentParser;
 import com.rikonardo.kiorm.serialization.DocumentSchema;
-import com.rikonardo.kiorm.serialization.SupportedTypes;
 import com.rikonardo.kiorm.transactions.TransactionBuilder;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class CountBuilder<T> implements QueryBuilder.ReturnsLong {
     private final KiORM db;
@@ -22,6 +26,7 @@ public class CountBuilder<T> implements QueryBuilder.ReturnsLong {
     private final DocumentParser.NameModifier fieldNameModifier;
 
     private AbstractQueryWhere where;
+    private Duration cacheTtl;
 
     private final TransactionBuilder transaction;
 
@@ -38,40 +43,85 @@ public class CountBuilder<T> implements QueryBuilder.ReturnsLong {
         return this;
     }
 
+    /**
+     * Caches result of this query in query cache of the database instance, see {@link KiORM#getQueryCache()}.
+     * Result is keyed by compiled SQL and bound values, and dropped after TTL or when any write query changes table of the document.
+     * Ignored inside transactions.
+     * @param ttl How long result is kept in cache
+     */
+    public CountBuilder<T> cached(Duration ttl) {
+        this.cacheTtl = ttl;
+        return this;
+    }
+
+    private CompiledQuery compile(DocumentSchema<T> schema) {
+        StringBuilder query = new StringBuilder("SELECT COUNT(*) FROM `").append(schema.getTable()).append("`");
+        List<Object> values = new ArrayList<>();
+        if (this.where != null) {
+            query.append(" WHERE ").append(this.where.compile(schema));
+            values.addAll(this.where.compileValues(schema));
+        }
+        query.append(";");
+        return new CompiledQuery(query.toString(), values);
+    }
+
+    /**
+     * Compiles this query into reusable template. Values of {@link com.rikonardo.kiorm.queries.api.Param} placeholders are bound on every execution.
+     * @return Query template
+     */
+    public QueryTemplate<Long> prepare() {
+        DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
+        return new QueryTemplate<>(db, compile(schema), CountBuilder::read, true);
+    }
+
+    private static long read(PreparedStatement preparedStatement) throws SQLException {
+        try (ResultSet rs = preparedStatement.executeQuery()) {
+            long records = 0;
+            if (rs.next())
+                records = rs.getLong(1);
+            return records;
+        }
+    }
+
     public long exec() {
         if (transaction != null && !transaction.isRunning()) return 0;
-        try {
-            DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
-            String query = "SELECT COUNT(*) FROM `" + schema.getTable() + "`";
-            List<Object> values = new ArrayList<>();
-            if (this.where != null) {
-                query += " WHERE " + this.where.compile(schema);
-                values.addAll(this.where.compileValues(schema));
-            }
-            query += ";";
-
-            PreparedStatement preparedStatement = db.getConnection().prepareStatement(query);
-            int i = 1;
-            for (Object value : values) {
-                SupportedTypes.SupportedType type = SupportedTypes.getAnyFieldType(value.getClass());
-                if (type == null) throw new InvalidQueryException("Query contains value of unsupported type " + value.getClass().getName());
-                type.write(preparedStatement, i, value);
-                i++;
-            }
+        DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
+        CompiledQuery query = compile(schema);
+        QueryCache cache = Caching.resultCache(db, this.cacheTtl, transaction);
+        Object key = cache == null ? null : Caching.resultKey(query);
+        if (key == null) return load(query);
+        Long cached = (Long) cache.get(key);
+        if (cached != null) return cached;
+        long generation = cache.getGeneration(schema.getTable());
+        boolean storable = Caching.storable(db);
+        long count = load(query);
+        if (storable) cache.put(schema.getTable(), key, count, 1, this.cacheTtl.toNanos(), generation);
+        return count;
+    }
+
+    private long load(CompiledQuery query) {
+        Connection connection = db.acquireReadConnection(transaction);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query.getSql())) {
+            query.bind(preparedStatement);
 
             if (transaction != null) {
                 preparedStatement.execute();
                 return 0;
             }
 
-            ResultSet rs = preparedStatement.executeQuery();
-
-            long records = 0;
-            if (rs.next())
-                records = rs.getLong(1);
-            return records;
+            return read(preparedStatement);
         } catch (SQLException e) {
             throw new RuntimeSQLException(e);
+        } finally {
+            db.releaseReadConnection(transaction, connection);
         }
     }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<Long> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
 }
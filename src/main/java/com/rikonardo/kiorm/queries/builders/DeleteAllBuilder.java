@@ -0,0 +1,101 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.exceptions.InvalidDocumentClassException;
+import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
+import com.rikonardo.kiorm.serialization.DocumentParser;
+import com.rikonardo.kiorm.serialization.DocumentSchema;
+import com.rikonardo.kiorm.transactions.TransactionBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class DeleteAllBuilder<T> implements QueryBuilder.ReturnsIntArray {
+    /**
+     * Maximum amount of placeholders in one MySQL prepared statement.
+     */
+    private static final int MAX_PARAMETERS = 65535;
+
+    private final KiORM db;
+    private final Collection<T> targets;
+    private final DocumentParser.NameModifier tableNameModifier;
+    private final DocumentParser.NameModifier fieldNameModifier;
+
+    private int chunkSize = 1000;
+
+    private final TransactionBuilder transaction;
+
+    public DeleteAllBuilder(KiORM db, Collection<T> targets, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier, TransactionBuilder transaction) {
+        this.db = db;
+        this.targets = targets;
+        this.tableNameModifier = tableNameModifier;
+        this.fieldNameModifier = fieldNameModifier;
+        this.transaction = transaction;
+    }
+
+    /**
+     * @param chunkSize Maximum amount of documents, deleted with one statement. Default is 1000.
+     */
+    public DeleteAllBuilder<T> chunkSize(int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be positive");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Deletes all documents by their primary keys.
+     * @return Deleted rows count of every chunk
+     */
+    public int[] exec() {
+        if (transaction != null && !transaction.isRunning()) return new int[0];
+        if (targets.isEmpty()) return new int[0];
+        DocumentSchema<T> schema = (DocumentSchema<T>) DocumentParser.schema(this.targets.iterator().next().getClass(), this.tableNameModifier, this.fieldNameModifier);
+        if (schema.getKeyPlan() == null)
+            throw new InvalidDocumentClassException("Document must have primary key in order to be used in delete operations");
+        int size = Math.max(1, Math.min(chunkSize, MAX_PARAMETERS / schema.getKeyPlan().getParameterCount()));
+        List<T> chunk = new ArrayList<>();
+        List<Integer> results = new ArrayList<>();
+        Connection connection = db.acquireConnection(transaction);
+        try {
+            for (T target : targets) {
+                chunk.add(target);
+                if (chunk.size() == size) results.add(execute(schema, connection, chunk));
+            }
+            if (!chunk.isEmpty()) results.add(execute(schema, connection, chunk));
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        } finally {
+            for (T target : this.targets)
+                schema.untrack(target);
+            Caching.invalidate(db, schema, this.targets, transaction);
+            db.releaseConnection(transaction, connection);
+        }
+        int[] counts = new int[results.size()];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = results.get(i);
+        return counts;
+    }
+
+    private static <T> int execute(DocumentSchema<T> schema, Connection connection, List<T> chunk) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(schema.deleteSql(chunk.size()))) {
+            int index = 1;
+            for (T target : chunk)
+                index = schema.getKeyPlan().bind(preparedStatement, target, index);
+            chunk.clear();
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<int[]> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
+}
@@ -0,0 +1,121 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.exceptions.InvalidDocumentClassException;
+import com.rikonardo.kiorm.exceptions.InvalidQueryException;
+import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
+import com.rikonardo.kiorm.serialization.DocumentParser;
+import com.rikonardo.kiorm.serialization.DocumentSchema;
+import com.rikonardo.kiorm.transactions.TransactionBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class DeleteByKeysBuilder<T> implements QueryBuilder.ReturnsIntArray {
+    /**
+     * Maximum amount of placeholders in one MySQL prepared statement.
+     */
+    private static final int MAX_PARAMETERS = 65535;
+
+    private final KiORM db;
+    private final Class<T> target;
+    private final Collection<?> keys;
+    private final DocumentParser.NameModifier tableNameModifier;
+    private final DocumentParser.NameModifier fieldNameModifier;
+
+    private int chunkSize = 1000;
+
+    private final TransactionBuilder transaction;
+
+    public DeleteByKeysBuilder(KiORM db, Class<T> target, Collection<?> keys, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier, TransactionBuilder transaction) {
+        this.db = db;
+        this.target = target;
+        this.keys = keys;
+        this.tableNameModifier = tableNameModifier;
+        this.fieldNameModifier = fieldNameModifier;
+        this.transaction = transaction;
+    }
+
+    /**
+     * @param chunkSize Maximum amount of keys, deleted with one statement. Default is 1000.
+     */
+    public DeleteByKeysBuilder<T> chunkSize(int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be positive");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Deletes documents with specified primary keys.
+     * @return Deleted rows count of every chunk
+     */
+    public int[] exec() {
+        if (transaction != null && !transaction.isRunning()) return new int[0];
+        if (keys.isEmpty()) return new int[0];
+        DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
+        if (schema.getKeyPlan() == null)
+            throw new InvalidDocumentClassException("Document must have primary key in order to be used in delete operations");
+        List<DocumentParser.DocumentField> keyFields = new ArrayList<>();
+        for (DocumentParser.DocumentField field : schema.getFields())
+            if (field.isPrimaryKey()) keyFields.add(field);
+        int size = Math.max(1, Math.min(chunkSize, MAX_PARAMETERS / keyFields.size()));
+        List<Object> chunk = new ArrayList<>();
+        List<Integer> results = new ArrayList<>();
+        Connection connection = db.acquireConnection(transaction);
+        try {
+            for (Object key : keys) {
+                chunk.add(key);
+                if (chunk.size() == size) results.add(execute(schema, keyFields, connection, chunk));
+            }
+            if (!chunk.isEmpty()) results.add(execute(schema, keyFields, connection, chunk));
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        } finally {
+            Caching.invalidateAll(db, schema, transaction);
+            db.releaseConnection(transaction, connection);
+        }
+        int[] counts = new int[results.size()];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = results.get(i);
+        return counts;
+    }
+
+    private static int execute(DocumentSchema<?> schema, List<DocumentParser.DocumentField> keyFields, Connection connection, List<Object> chunk) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(schema.deleteSql(chunk.size()))) {
+            int index = 1;
+            for (Object key : chunk) {
+                Object[] values = keyValues(key, keyFields.size());
+                for (int i = 0; i < values.length; i++) {
+                    DocumentParser.DocumentField field = keyFields.get(i);
+                    field.getSerializer().getStorageType().write(preparedStatement, index++, field.getSerializer().serialize(values[i]));
+                }
+            }
+            chunk.clear();
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    private static Object[] keyValues(Object key, int count) {
+        if (count == 1) return new Object[] { key };
+        Object[] values;
+        if (key instanceof Object[]) values = (Object[]) key;
+        else if (key instanceof List) values = ((List<?>) key).toArray();
+        else throw new InvalidQueryException("Composite key must be passed as Object[] or List, got " + (key == null ? "null" : key.getClass().getName()));
+        if (values.length != count)
+            throw new InvalidQueryException("Composite key must contain " + count + " values, got " + values.length);
+        return values;
+    }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<int[]> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
+}
@@ -2,17 +2,17 @@ package com.rikonardo.kiorm.queries.builders;
 
 import com.rikonardo.kiorm.KiORM;
 import com.rikonardo.kiorm.exceptions.InvalidDocumentClassException;
-import com.rikonardo.kiorm.exceptions.InvalidQueryException;
 import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
 import com.rikonardo.kiorm.serialization.DocumentParser;
 import com.rikonardo.kiorm.serialization.DocumentSchema;
-import com.rikonardo.kiorm.serialization.SupportedTypes;
+import com.rikonardo.kiorm.serialization.WritePlan;
 import com.rikonardo.kiorm.transactions.TransactionBuilder;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 public class DeleteInstanceBuilder<T> implements QueryBuilder.ReturnsInt {
     private final KiORM db;
@@ -32,31 +32,40 @@ public class DeleteInstanceBuilder<T> implements QueryBuilder.ReturnsInt {
 
     public int exec() {
         if (transaction != null && !transaction.isRunning()) return 0;
-        try {
-            DocumentSchema<T> schema = (DocumentSchema<T>) DocumentParser.schema(this.target.getClass(), this.tableNameModifier, this.fieldNameModifier);
-            Map<String, Object> keys = schema.mapKeysOnly(this.target);
-            if (keys.size() == 0)
-                throw new InvalidDocumentClassException("Document must have primary key in order to be used in delete operations");
-            String query = "DELETE FROM `" + schema.getTable() + "` WHERE " +
-                    keys.keySet().stream().map(k -> "`" + k + "` = ?").collect(Collectors.joining(", ")) + ";";
-
-            PreparedStatement preparedStatement = db.getConnection().prepareStatement(query);
-            int i = 1;
-            for (String key : keys.keySet()) {
-                SupportedTypes.SupportedType type = schema.getFieldType(key);
-                if (type == null) throw new InvalidQueryException("Query contains value of unsupported type " + keys.get(key).getClass().getName());
-                type.write(preparedStatement, i, keys.get(key));
-                i++;
-            }
-
-            if (transaction != null) {
-                preparedStatement.execute();
+        DocumentSchema<T> schema = (DocumentSchema<T>) DocumentParser.schema(this.target.getClass(), this.tableNameModifier, this.fieldNameModifier);
+        WritePlan<T> plan = schema.getDeletePlan();
+        if (plan == null)
+            throw new InvalidDocumentClassException("Document must have primary key in order to be used in delete operations");
+        if (transaction != null) {
+            try {
+                transaction.batch(plan.getSql(), preparedStatement -> plan.bind(preparedStatement, this.target));
                 return 0;
+            } catch (SQLException e) {
+                throw new RuntimeSQLException(e);
+            } finally {
+                schema.untrack(this.target);
+                Caching.invalidate(db, schema, Collections.singletonList(this.target), transaction);
             }
+        }
+        Connection connection = db.acquireConnection(transaction);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(plan.getSql())) {
+            plan.bind(preparedStatement, this.target);
 
             return preparedStatement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeSQLException(e);
+        } finally {
+            schema.untrack(this.target);
+            Caching.invalidate(db, schema, Collections.singletonList(this.target), transaction);
+            db.releaseConnection(transaction, connection);
         }
     }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<Integer> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
 }
@@ -0,0 +1,163 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
+import com.rikonardo.kiorm.serialization.DocumentParser;
+import com.rikonardo.kiorm.serialization.DocumentSchema;
+import com.rikonardo.kiorm.serialization.WritePlan;
+import com.rikonardo.kiorm.transactions.TransactionBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class InsertAllBuilder<T> implements QueryBuilder.ReturnsIntArray {
+    /**
+     * Maximum amount of placeholders in one MySQL prepared statement.
+     */
+    private static final int MAX_PARAMETERS = 65535;
+
+    private final KiORM db;
+    private final Collection<T> targets;
+    private final DocumentParser.NameModifier tableNameModifier;
+    private final DocumentParser.NameModifier fieldNameModifier;
+
+    private Mode mode = Mode.MULTI_ROW;
+    private int chunkSize = 1000;
+
+    private final TransactionBuilder transaction;
+
+    public InsertAllBuilder(KiORM db, Collection<T> targets, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier, TransactionBuilder transaction) {
+        this.db = db;
+        this.targets = targets;
+        this.tableNameModifier = tableNameModifier;
+        this.fieldNameModifier = fieldNameModifier;
+        this.transaction = transaction;
+    }
+
+    /**
+     * @param mode How documents of one chunk are sent to the database. Default is {@link Mode#MULTI_ROW}.
+     */
+    public InsertAllBuilder<T> mode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * @param chunkSize Maximum amount of documents, sent to the database at once. Default is 1000.
+     */
+    public InsertAllBuilder<T> chunkSize(int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be positive");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Inserts all documents. Generated keys are written back to every document, just like after single insert.
+     * @return Inserted rows count of every chunk
+     */
+    public int[] exec() {
+        if (transaction != null && !transaction.isRunning()) return new int[0];
+        if (targets.isEmpty()) return new int[0];
+        DocumentSchema<T> schema = (DocumentSchema<T>) DocumentParser.schema(this.targets.iterator().next().getClass(), this.tableNameModifier, this.fieldNameModifier);
+        WritePlan<T> plan = schema.getInsertPlan();
+        List<T> chunk = new ArrayList<>();
+        List<Integer> results = new ArrayList<>();
+        Connection connection = db.acquireConnection(transaction);
+        try {
+            int size = mode == Mode.MULTI_ROW ? Math.max(1, Math.min(chunkSize, MAX_PARAMETERS / Math.max(1, plan.getParameterCount()))) : chunkSize;
+            if (mode == Mode.BATCH) {
+                try (PreparedStatement preparedStatement = connection.prepareStatement(plan.getSql(), Statement.RETURN_GENERATED_KEYS)) {
+                    for (T target : targets) {
+                        chunk.add(target);
+                        if (chunk.size() == size) results.add(executeBatch(schema, plan, preparedStatement, chunk));
+                    }
+                    if (!chunk.isEmpty()) results.add(executeBatch(schema, plan, preparedStatement, chunk));
+                }
+            } else {
+                for (T target : targets) {
+                    chunk.add(target);
+                    if (chunk.size() == size) results.add(executeMultiRow(schema, plan, connection, chunk));
+                }
+                if (!chunk.isEmpty()) results.add(executeMultiRow(schema, plan, connection, chunk));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        } finally {
+            for (T target : this.targets)
+                schema.untrack(target);
+            Caching.invalidate(db, schema, this.targets, transaction);
+            db.releaseConnection(transaction, connection);
+        }
+        int[] counts = new int[results.size()];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = results.get(i);
+        return counts;
+    }
+
+    private static <T> int executeBatch(DocumentSchema<T> schema, WritePlan<T> plan, PreparedStatement preparedStatement, List<T> chunk) throws SQLException {
+        for (T target : chunk) {
+            plan.bind(preparedStatement, target);
+            preparedStatement.addBatch();
+        }
+        int rows = 0;
+        for (int count : preparedStatement.executeBatch()) {
+            if (count == Statement.SUCCESS_NO_INFO) {
+                rows = Statement.SUCCESS_NO_INFO;
+                break;
+            }
+            rows += count;
+        }
+        fillKeys(schema, preparedStatement, chunk);
+        chunk.clear();
+        return rows;
+    }
+
+    private static <T> int executeMultiRow(DocumentSchema<T> schema, WritePlan<T> plan, Connection connection, List<T> chunk) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(schema.insertSql(chunk.size()), Statement.RETURN_GENERATED_KEYS)) {
+            int index = 1;
+            for (T target : chunk)
+                index = plan.bind(preparedStatement, target, index);
+            int rows = preparedStatement.executeUpdate();
+            fillKeys(schema, preparedStatement, chunk);
+            chunk.clear();
+            return rows;
+        }
+    }
+
+    private static <T> void fillKeys(DocumentSchema<T> schema, PreparedStatement preparedStatement, List<T> chunk) throws SQLException {
+        try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+            for (T target : chunk) {
+                if (!generatedKeys.next()) break;
+                schema.fillKey(generatedKeys, target);
+            }
+        }
+    }
+
+    public enum Mode {
+        /**
+         * Every chunk is sent as JDBC batch of single-row inserts.
+         * Add {@code rewriteBatchedStatements=true} to connection URL to let MySQL driver merge them into multi-row statements.
+         */
+        BATCH,
+        /**
+         * Every chunk is sent as one {@code INSERT ... VALUES (...), (...), ...} statement.
+         * Chunks are shrunk if needed to fit MySQL limit of 65535 placeholders per statement.
+         */
+        MULTI_ROW
+    }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<int[]> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
+}
@@ -1,19 +1,19 @@
 package com.rikonardo.kiorm.queries.builders;
 
 import com.rikonardo.kiorm.KiORM;
-import com.rikonardo.kiorm.exceptions.InvalidQueryException;
 import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
 import com.rikonardo.kiorm.serialization.DocumentParser;
 import com.rikonardo.kiorm.serialization.DocumentSchema;
-import com.rikonardo.kiorm.serialization.SupportedTypes;
+import com.rikonardo.kiorm.serialization.WritePlan;
 import com.rikonardo.kiorm.transactions.TransactionBuilder;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 public class InsertBuilder<T> implements QueryBuilder.ReturnsInt {
     private final KiORM db;
@@ -33,26 +33,21 @@ public class InsertBuilder<T> implements QueryBuilder.ReturnsInt {
 
     public int exec() {
         if (transaction != null && !transaction.isRunning()) return 0;
-        try {
-            DocumentSchema<T> schema = (DocumentSchema<T>) DocumentParser.schema(this.target.getClass(), this.tableNameModifier, this.fieldNameModifier);
-            Map<String, Object> fields = schema.mapWithoutId(this.target);
-            String query = "INSERT INTO `" + schema.getTable() + "` (" +
-                    fields.keySet().stream().map(k -> "`" + k + "`").collect(Collectors.joining(", ")) + ") VALUES (" +
-                    fields.keySet().stream().map(k -> "?").collect(Collectors.joining(", ")) + ");";
-
-            PreparedStatement preparedStatement = db.getConnection().prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
-            int i = 1;
-            for (String key : fields.keySet()) {
-                SupportedTypes.SupportedType type = schema.getFieldType(key);
-                if (type == null) throw new InvalidQueryException("Query contains value of unsupported type " + fields.get(key).getClass().getName());
-                type.write(preparedStatement, i, fields.get(key));
-                i++;
-            }
-
-            if (transaction != null) {
-                preparedStatement.execute();
+        DocumentSchema<T> schema = (DocumentSchema<T>) DocumentParser.schema(this.target.getClass(), this.tableNameModifier, this.fieldNameModifier);
+        WritePlan<T> plan = schema.getInsertPlan();
+        if (transaction != null) {
+            try {
+                transaction.batch(plan.getSql(), preparedStatement -> plan.bind(preparedStatement, this.target));
                 return 0;
+            } catch (SQLException e) {
+                throw new RuntimeSQLException(e);
+            } finally {
+                Caching.invalidate(db, schema, Collections.singletonList(this.target), transaction);
             }
+        }
+        Connection connection = db.acquireConnection(transaction);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(plan.getSql(), Statement.RETURN_GENERATED_KEYS)) {
+            plan.bind(preparedStatement, this.target);
 
             int rows = preparedStatement.executeUpdate();
 
@@ -62,9 +57,21 @@ public class InsertBuilder<T> implements QueryBuilder.ReturnsInt {
                 }
             }
 
+            schema.track(this.target);
             return rows;
         } catch (SQLException e) {
             throw new RuntimeSQLException(e);
+        } finally {
+            Caching.invalidate(db, schema, Collections.singletonList(this.target), transaction);
+            db.releaseConnection(transaction, connection);
         }
     }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<Integer> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
 }
@@ -0,0 +1,237 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.exceptions.InvalidQueryException;
+import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
+import com.rikonardo.kiorm.queries.CompiledQuery;
+import com.rikonardo.kiorm.serialization.DocumentParser;
+import com.rikonardo.kiorm.serialization.DocumentSchema;
+import com.rikonardo.kiorm.serialization.RowMapper;
+import com.rikonardo.kiorm.transactions.TransactionBuilder;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Lazy keyset (seek) pagination over select query. Every page is selected with {@code WHERE (k) > (?) ORDER BY k LIMIT n},
+ * where {@code k} are key columns and {@code ?} are their values in the last row of previous page,
+ * so deep pages are as cheap as the first one.
+ * <p>Position after the last returned page can be saved with {@link #getToken()} and restored with {@link SelectBuilder#pages(int, String)}.
+ */
+public class PageCursor<T> implements Iterator<List<T>>, Iterable<List<T>> {
+    private static final int TOKEN_VERSION = 1;
+
+    private final KiORM db;
+    private final DocumentSchema<T> schema;
+    private final TransactionBuilder transaction;
+    private final List<DocumentParser.DocumentField> keys;
+    private final int pageSize;
+    private final int fingerprint;
+    private final String firstSql;
+    private final String nextSql;
+    private final List<Object> whereValues;
+    /**
+     * Indexes of keys, which values are bound to keyset condition placeholders, in placeholder order
+     */
+    private final int[] conditionKeys;
+    private final boolean partial;
+
+    private Object[] position;
+    private List<T> next;
+    private boolean exhausted;
+
+    PageCursor(KiORM db, DocumentSchema<T> schema, TransactionBuilder transaction, String columns, boolean partial, String where, List<Object> whereValues, List<DocumentParser.DocumentField> keys, boolean[] descending, int pageSize, String token) {
+        this.db = db;
+        this.schema = schema;
+        this.transaction = transaction;
+        this.keys = keys;
+        this.pageSize = pageSize;
+        this.whereValues = whereValues;
+        this.partial = partial;
+
+        StringBuilder order = new StringBuilder();
+        StringBuilder signature = new StringBuilder(schema.getTable());
+        boolean sameDirection = true;
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) order.append(", ");
+            order.append('`').append(keys.get(i).getName()).append(descending[i] ? "` DESC" : "` ASC");
+            signature.append('\0').append(keys.get(i).getName()).append(descending[i] ? '-' : '+');
+            if (descending[i] != descending[0]) sameDirection = false;
+        }
+        this.fingerprint = signature.toString().hashCode();
+
+        StringBuilder condition = new StringBuilder();
+        List<Integer> conditionKeys = new ArrayList<>();
+        if (sameDirection) {
+            StringBuilder keyColumns = new StringBuilder();
+            StringBuilder placeholders = new StringBuilder();
+            for (int i = 0; i < keys.size(); i++) {
+                if (i > 0) {
+                    keyColumns.append(", ");
+                    placeholders.append(", ");
+                }
+                keyColumns.append('`').append(keys.get(i).getName()).append('`');
+                placeholders.append('?');
+                conditionKeys.add(i);
+            }
+            String operator = descending[0] ? " < " : " > ";
+            if (keys.size() == 1) condition.append(keyColumns).append(operator).append(placeholders);
+            else condition.append('(').append(keyColumns).append(')').append(operator).append('(').append(placeholders).append(')');
+        } else {
+            for (int i = 0; i < keys.size(); i++) {
+                if (i > 0) condition.append(" OR ");
+                condition.append('(');
+                for (int j = 0; j < i; j++) {
+                    condition.append('`').append(keys.get(j).getName()).append("` = ? AND ");
+                    conditionKeys.add(j);
+                }
+                condition.append('`').append(keys.get(i).getName()).append(descending[i] ? "` < ?" : "` > ?").append(')');
+                conditionKeys.add(i);
+            }
+        }
+        this.conditionKeys = new int[conditionKeys.size()];
+        for (int i = 0; i < this.conditionKeys.length; i++)
+            this.conditionKeys[i] = conditionKeys.get(i);
+
+        String select = "SELECT " + columns + " FROM `" + schema.getTable() + "`";
+        String suffix = " ORDER BY " + order + " LIMIT " + pageSize + ";";
+        this.firstSql = select + (where != null ? " WHERE " + where : "") + suffix;
+        this.nextSql = select + " WHERE " + (where != null ? "(" + where + ") AND " : "") + "(" + condition + ")" + suffix;
+
+        if (token != null) this.position = decode(token);
+    }
+
+    @Override
+    public Iterator<List<T>> iterator() {
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !exhausted) next = fetch();
+        return next != null && !next.isEmpty();
+    }
+
+    @Override
+    public List<T> next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        List<T> page = next;
+        next = null;
+        if (page.size() < pageSize) exhausted = true;
+        position = keyValues(page.get(page.size() - 1));
+        return page;
+    }
+
+    /**
+     * @return Opaque continuation token, pointing after the last returned page, or null if there are no more pages
+     */
+    public String getToken() {
+        return exhausted ? null : encode(position);
+    }
+
+    private List<T> fetch() {
+        if (transaction != null && !transaction.isRunning()) return Collections.emptyList();
+        List<Object> values = new ArrayList<>(whereValues);
+        if (position != null)
+            for (int key : conditionKeys)
+                values.add(position[key]);
+        CompiledQuery query = new CompiledQuery(position == null ? firstSql : nextSql, values);
+        Connection connection = db.acquireReadConnection(transaction);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query.getSql())) {
+            query.bind(preparedStatement);
+            try (ResultSet rs = preparedStatement.executeQuery()) {
+                RowMapper<T> mapper = schema.rowMapper(rs, partial);
+                List<T> page = new ArrayList<>(pageSize);
+                while (rs.next())
+                    page.add(mapper.map(rs));
+                if (page.isEmpty()) exhausted = true;
+                return page;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        } finally {
+            db.releaseReadConnection(transaction, connection);
+        }
+    }
+
+    private Object[] keyValues(T instance) {
+        try {
+            Object[] values = new Object[keys.size()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = keys.get(i).getSerializer().serialize(keys.get(i).read(instance));
+            return values;
+        } catch (InvocationTargetException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    String encode(Object[] values) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(TOKEN_VERSION);
+            out.writeInt(fingerprint);
+            out.writeBoolean(values != null);
+            if (values != null)
+                for (Object value : values)
+                    writeValue(out, value);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    Object[] decode(String token) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)));
+            if (in.readByte() != TOKEN_VERSION || in.readInt() != fingerprint)
+                throw new InvalidQueryException("Continuation token does not belong to this query");
+            if (!in.readBoolean()) return null;
+            Object[] values = new Object[keys.size()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = readValue(in);
+            return values;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidQueryException("Malformed continuation token", e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) out.writeByte(0);
+        else if (value instanceof String) { out.writeByte(1); out.writeUTF((String) value); }
+        else if (value instanceof Boolean) { out.writeByte(2); out.writeBoolean((Boolean) value); }
+        else if (value instanceof Byte) { out.writeByte(3); out.writeByte((Byte) value); }
+        else if (value instanceof Short) { out.writeByte(4); out.writeShort((Short) value); }
+        else if (value instanceof Integer) { out.writeByte(5); out.writeInt((Integer) value); }
+        else if (value instanceof Long) { out.writeByte(6); out.writeLong((Long) value); }
+        else if (value instanceof Float) { out.writeByte(7); out.writeFloat((Float) value); }
+        else if (value instanceof Double) { out.writeByte(8); out.writeDouble((Double) value); }
+        else if (value instanceof byte[]) { out.writeByte(9); out.writeInt(((byte[]) value).length); out.write((byte[]) value); }
+        else throw new InvalidQueryException("Key value of type " + value.getClass().getName() + " can't be stored in continuation token");
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        switch (in.readByte()) {
+            case 0: return null;
+            case 1: return in.readUTF();
+            case 2: return in.readBoolean();
+            case 3: return in.readByte();
+            case 4: return in.readShort();
+            case 5: return in.readInt();
+            case 6: return in.readLong();
+            case 7: return in.readFloat();
+            case 8: return in.readDouble();
+            case 9: {
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                return value;
+            }
+            default: throw new IOException("Unknown value type");
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
+import com.rikonardo.kiorm.queries.CompiledQuery;
+import com.rikonardo.kiorm.serialization.DocumentParser;
+import com.rikonardo.kiorm.serialization.DocumentSchema;
+import com.rikonardo.kiorm.serialization.RowMapper;
+
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Full scan of select query, split into contiguous ranges of integer primary key.
+ * Bounds are computed from {@code MIN} and {@code MAX} of the key among filtered rows, the first slice has no lower bound and the last one
+ * has no upper bound, so rows outside the initial range are scanned too. Every slice is streamed on its own connection
+ * with {@code WHERE (filter) AND k >= ? AND k < ?}, when parallel stream reaches it.
+ * <p>Slices run on tasks of the common {@link java.util.concurrent.ForkJoinPool}, and every running slice holds its streaming connection
+ * until all its rows are read. Connection pool (of replicas, if reads go to them) must allow at least as many connections as stream
+ * parallelism plus connections of other queries, otherwise slices block on borrowing until acquisition timeout.
+ */
+class ParallelScan<T> {
+    private final KiORM db;
+    private final DocumentSchema<T> schema;
+    private final String sql;
+    private final List<Object> whereValues;
+    private final String boundsSql;
+    private final String keyColumn;
+    private final boolean partial;
+    private final int fetchSize;
+    /**
+     * Lower bounds of slices, except the first one, in ascending order
+     */
+    private final List<Long> bounds = new ArrayList<>();
+    private final Set<Slice> open = ConcurrentHashMap.newKeySet();
+
+    ParallelScan(KiORM db, DocumentSchema<T> schema, String columns, boolean partial, String where, List<Object> whereValues, DocumentParser.DocumentField key, int fetchSize) {
+        this.db = db;
+        this.schema = schema;
+        this.partial = partial;
+        this.whereValues = whereValues;
+        this.fetchSize = fetchSize;
+        String filter = where == null ? "" : "(" + where + ") AND ";
+        this.sql = "SELECT " + columns + " FROM `" + schema.getTable() + "` WHERE " + filter;
+        this.boundsSql = "SELECT MIN(`" + key.getName() + "`), MAX(`" + key.getName() + "`) FROM `" + schema.getTable() + "`"
+                + (where == null ? "" : " WHERE " + where) + ";";
+        this.keyColumn = "`" + key.getName() + "`";
+    }
+
+    /**
+     * Splits key range into up to specified amount of slices. Range is never split finer than one key per slice.
+     * @return Parallel stream over all slices, or empty stream if no rows match filter
+     */
+    Stream<T> stream(int slices) {
+        Connection connection = db.acquireReadConnection(null);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(boundsSql)) {
+            new CompiledQuery(boundsSql, whereValues).bind(preparedStatement);
+            try (ResultSet rs = preparedStatement.executeQuery()) {
+                if (!rs.next()) return Stream.empty();
+                long min = rs.getLong(1);
+                if (rs.wasNull()) return Stream.empty();
+                long max = rs.getLong(2);
+                split(min, max, slices);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        } finally {
+            db.releaseReadConnection(null, connection);
+        }
+        return StreamSupport.stream(new SliceSpliterator(0, bounds.size() + 1), true).onClose(this::close);
+    }
+
+    private void split(long min, long max, int slices) {
+        BigInteger low = BigInteger.valueOf(min);
+        BigInteger span = BigInteger.valueOf(max).subtract(low).add(BigInteger.ONE);
+        BigInteger count = span.min(BigInteger.valueOf(slices));
+        for (int i = 1; i < count.intValue(); i++)
+            bounds.add(low.add(span.multiply(BigInteger.valueOf(i)).divide(count)).longValue());
+    }
+
+    private void close() {
+        RuntimeSQLException error = null;
+        for (Slice slice : open) {
+            try {
+                slice.close();
+            } catch (RuntimeSQLException e) {
+                if (error == null) error = e;
+                else error.addSuppressed(e);
+            }
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * Closes result set, then statement. Null resources are skipped.
+     */
+    private static void close(ResultSet rs, Statement statement) throws SQLException {
+        SQLException error = null;
+        try {
+            if (rs != null) rs.close();
+        } catch (SQLException e) {
+            error = e;
+        }
+        try {
+            if (statement != null) statement.close();
+        } catch (SQLException e) {
+            if (error == null) error = e;
+            else error.addSuppressed(e);
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * Open query of one slice.
+     */
+    private class Slice {
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Slice(int index) {
+            StringBuilder query = new StringBuilder(sql);
+            List<Object> values = new ArrayList<>(whereValues);
+            if (index > 0) {
+                query.append(keyColumn).append(" >= ?");
+                values.add(bounds.get(index - 1));
+            }
+            if (index < bounds.size()) {
+                if (index > 0) query.append(" AND ");
+                query.append(keyColumn).append(" < ?");
+                values.add(bounds.get(index));
+            }
+            if (bounds.isEmpty()) query.append("1");
+            query.append(";");
+            CompiledQuery compiled = new CompiledQuery(query.toString(), values);
+            this.connection = db.acquireReadConnection(null);
+            PreparedStatement statement = null;
+            ResultSet rs = null;
+            try {
+                statement = connection.prepareStatement(compiled.getSql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                compiled.bind(statement);
+                rs = statement.executeQuery();
+                this.mapper = schema.rowMapper(rs, partial);
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    ParallelScan.close(rs, statement);
+                } catch (SQLException suppressed) {
+                    e.addSuppressed(suppressed);
+                } finally {
+                    db.releaseReadConnection(null, connection);
+                }
+                if (e instanceof SQLException) throw new RuntimeSQLException((SQLException) e);
+                throw (RuntimeException) e;
+            }
+            this.statement = statement;
+            this.rs = rs;
+            open.add(this);
+        }
+
+        private void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            open.remove(this);
+            try {
+                ParallelScan.close(rs, statement);
+            } catch (SQLException e) {
+                throw new RuntimeSQLException(e);
+            } finally {
+                db.releaseReadConnection(null, connection);
+            }
+        }
+    }
+
+    /**
+     * Spliterator over range of slices. Splitting halves the range, so parallel stream gives every slice to separate task.
+     * Slices are opened lazily, one after another.
+     */
+    private class SliceSpliterator implements Spliterator<T> {
+        private int from;
+        private final int to;
+        private Slice current;
+
+        private SliceSpliterator(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+                while (from < to) {
+                    if (current == null) current = new Slice(from);
+                    if (current.rs.next()) {
+                        action.accept(current.mapper.map(current.rs));
+                        return true;
+                    }
+                    current.close();
+                    current = null;
+                    from++;
+                }
+                return false;
+            } catch (SQLException e) {
+                throw new RuntimeSQLException(e);
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (current != null || to - from < 2) return null;
+            int middle = (from + to) >>> 1;
+            Spliterator<T> prefix = new SliceSpliterator(from, middle);
+            from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.NONNULL | Spliterator.IMMUTABLE;
+        }
+    }
+}
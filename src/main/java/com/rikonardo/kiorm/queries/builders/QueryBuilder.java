@@ -1,18 +1,27 @@
 package com.rikonardo.kiorm.queries.builders;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface QueryBuilder {
     interface ReturnsList extends QueryBuilder {
         List<?> exec();
+        CompletableFuture<? extends List<?>> execAsync();
     }
     interface ReturnsLong extends QueryBuilder {
         long exec();
+        CompletableFuture<Long> execAsync();
     }
     interface ReturnsInt extends QueryBuilder {
         int exec();
+        CompletableFuture<Integer> execAsync();
+    }
+    interface ReturnsIntArray extends QueryBuilder {
+        int[] exec();
+        CompletableFuture<int[]> execAsync();
     }
     interface ReturnsInstance<T> extends QueryBuilder {
         T exec();
+        CompletableFuture<T> execAsync();
     }
 }
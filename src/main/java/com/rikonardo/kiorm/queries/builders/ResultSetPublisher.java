@@ -0,0 +1,148 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes rows of select query, reading result set only when subscriber has unfulfilled demand.
+ * All reads of one subscription are serialized: only one drain task runs at a time, and demand, that arrives while it runs, is picked up by it.
+ */
+class ResultSetPublisher<T> implements Publisher<T> {
+    private final SelectBuilder<T> builder;
+    private final Executor executor;
+
+    ResultSetPublisher(SelectBuilder<T> builder, Executor executor) {
+        this.builder = builder;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new ResultSetSubscription(subscriber));
+    }
+
+    private class ResultSetSubscription implements Subscription {
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger scheduled = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile Throwable invalidRequest;
+        /**
+         * Statement of running query, published for {@link #cancel()}. Everything else is accessed only by drain task.
+         */
+        private volatile PreparedStatement statement;
+        private SelectBuilder<T>.OpenQuery query;
+        private boolean done = false;
+
+        private ResultSetSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested amount must be positive, got " + n);
+            } else {
+                long current, next;
+                do {
+                    current = requested.get();
+                    if (current == Long.MAX_VALUE) break;
+                    next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                } while (!requested.compareAndSet(current, next));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            PreparedStatement running = statement;
+            if (running != null) {
+                try {
+                    running.cancel();
+                } catch (SQLException ignored) {
+                    // Statement is closed by drain task anyway
+                }
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.getAndIncrement() != 0) return;
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                drain();
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!done) step();
+                missed = scheduled.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void step() {
+            try {
+                Throwable invalid = invalidRequest;
+                if (cancelled || invalid != null) {
+                    finish();
+                    if (!cancelled) subscriber.onError(invalid);
+                    return;
+                }
+                long demand = requested.get();
+                if (demand == 0) return;
+                if (query == null) {
+                    query = builder.open();
+                    if (query == null) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    statement = query.statement;
+                }
+                long emitted = 0;
+                while (emitted < demand && !cancelled) {
+                    if (!query.rs.next()) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(query.mapper.map(query.rs));
+                    emitted++;
+                }
+                if (cancelled) finish();
+                else if (demand != Long.MAX_VALUE) requested.addAndGet(-emitted);
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    finish();
+                } catch (SQLException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                if (!cancelled) subscriber.onError(e instanceof SQLException ? new RuntimeSQLException((SQLException) e) : e);
+            }
+        }
+
+        private void finish() throws SQLException {
+            done = true;
+            statement = null;
+            SelectBuilder<T>.OpenQuery open = query;
+            query = null;
+            if (open != null) open.close();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
+import com.rikonardo.kiorm.serialization.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Maps rows of the result set lazily, one row per advance. Result set is not closed by spliterator.
+ */
+class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+    private final ResultSet rs;
+    private final RowMapper<T> mapper;
+
+    ResultSetSpliterator(ResultSet rs, RowMapper<T> mapper) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        this.rs = rs;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        try {
+            if (!rs.next()) return false;
+            action.accept(mapper.map(rs));
+            return true;
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        }
+    }
+}
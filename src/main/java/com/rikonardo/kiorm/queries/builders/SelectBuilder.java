@@ -1,22 +1,35 @@
 package com.rikonardo.kiorm.queries.builders;
 
 import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.cache.EntityCache;
+import com.rikonardo.kiorm.cache.QueryCache;
 import com.rikonardo.kiorm.exceptions.InvalidQueryException;
 import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
 import com.rikonardo.kiorm.queries.AbstractQueryOrder;
 import com.rikonardo.kiorm.queries.AbstractQueryWhere;
+import com.rikonardo.kiorm.queries.CompiledQuery;
+import com.rikonardo.kiorm.queries.QueryTemplate;
+import com.rikonardo.kiorm.queries.parts.order.QueryOrderAsc;
+import com.rikonardo.kiorm.queries.parts.order.QueryOrderDesc;
 import com.rikonardo.kiorm.queries.parts.order.QueryOrderSeveral;
 import com.rikonardo.kiorm.serialization.DocumentParser;
 import com.rikonardo.kiorm.serialization.DocumentSchema;
-import com.rikonardo.kiorm.serialization.SupportedTypes;
+import com.rikonardo.kiorm.serialization.RowMapper;
 import com.rikonardo.kiorm.transactions.TransactionBuilder;
+import org.reactivestreams.Publisher;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SelectBuilder<T> implements QueryBuilder.ReturnsList {
     private final KiORM db;
@@ -27,6 +40,9 @@ public class SelectBuilder<T> implements QueryBuilder.ReturnsList {
     private AbstractQueryWhere where;
     private AbstractQueryOrder order;
     private int limitSkip = -1, limitCount = -1;
+    private int fetchSize = Integer.MIN_VALUE;
+    private String[] fields;
+    private Duration cacheTtl;
 
     private final TransactionBuilder transaction;
 
@@ -65,49 +81,378 @@ public class SelectBuilder<T> implements QueryBuilder.ReturnsList {
         return this;
     }
 
-    public List<T> exec() {
-        if (transaction != null && !transaction.isRunning()) return new ArrayList<>();
+    /**
+     * Selects only specified fields. Other fields of selected documents keep values, assigned by document constructor.
+     * @param fields Field names
+     */
+    public SelectBuilder<T> fields(String... fields) {
+        this.fields = fields;
+        return this;
+    }
+
+    /**
+     * Caches result of this query in query cache of the database instance, see {@link KiORM#getQueryCache()}.
+     * Result is keyed by compiled SQL and bound values, and dropped after TTL or when any write query changes table of the document.
+     * Ignored inside transactions.
+     * @param ttl How long result is kept in cache
+     */
+    public SelectBuilder<T> cached(Duration ttl) {
+        this.cacheTtl = ttl;
+        return this;
+    }
+
+    /**
+     * Sets fetch size, used by {@link #stream()} and {@link #forEach}. By default, {@code Integer.MIN_VALUE} is used, which makes MySQL driver stream rows one by one.
+     * Positive values fetch rows in batches of this size with server-side cursor, which requires {@code useCursorFetch=true} in connection URL.
+     * @param fetchSize Rows fetched per round-trip
+     */
+    public SelectBuilder<T> fetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    private CompiledQuery compile(DocumentSchema<T> schema) {
+        StringBuilder query = new StringBuilder("SELECT ").append(columns(projection(schema, this.fields))).append(" FROM `").append(schema.getTable()).append("`");
+        List<Object> values = new ArrayList<>();
+        if (this.where != null) {
+            query.append(" WHERE ").append(this.where.compile(schema));
+            values.addAll(this.where.compileValues(schema));
+        }
+        if (this.order != null) {
+            query.append(" ORDER BY ").append(this.order.compile(schema));
+        }
+        if (this.limitSkip >= 0) {
+            query.append(" LIMIT ").append(this.limitSkip).append(", ").append(this.limitCount);
+        } else if (this.limitCount >= 0) {
+            query.append(" LIMIT ").append(this.limitCount);
+        }
+        query.append(";");
+        return new CompiledQuery(query.toString(), values);
+    }
+
+    /**
+     * Compiles this query into reusable template. Values of {@link com.rikonardo.kiorm.queries.api.Param} placeholders are bound on every execution.
+     * @return Query template
+     */
+    public QueryTemplate<List<T>> prepare() {
+        DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
+        boolean partial = this.fields != null;
+        return new QueryTemplate<>(db, compile(schema), preparedStatement -> read(schema, preparedStatement, partial), true);
+    }
+
+    /**
+     * Resolves projected fields.
+     * @param names Field names, or null to select all fields
+     * @return Projected fields, or null if all fields are selected
+     */
+    static List<DocumentParser.DocumentField> projection(DocumentSchema<?> schema, String[] names) {
+        if (names == null) return null;
+        List<DocumentParser.DocumentField> fields = new ArrayList<>();
+        for (String name : names) {
+            String fieldName = schema.toStorageFieldName(name);
+            DocumentParser.DocumentField found = null;
+            for (DocumentParser.DocumentField field : schema.getFields())
+                if (field.getName().equals(fieldName)) found = field;
+            if (found == null) throw new InvalidQueryException("Document " + schema.getType().getName() + " does not have field " + fieldName);
+            if (!fields.contains(found)) fields.add(found);
+        }
+        return fields;
+    }
+
+    static String columns(List<DocumentParser.DocumentField> projection) {
+        if (projection == null) return "*";
+        StringBuilder columns = new StringBuilder();
+        for (DocumentParser.DocumentField field : projection) {
+            if (columns.length() > 0) columns.append(", ");
+            columns.append('`').append(field.getName()).append('`');
+        }
+        return columns.toString();
+    }
+
+    private static <T> List<T> read(DocumentSchema<T> schema, PreparedStatement preparedStatement, boolean partial) throws SQLException {
+        try (ResultSet rs = preparedStatement.executeQuery()) {
+            RowMapper<T> mapper = schema.rowMapper(rs, partial);
+            List<T> results = new ArrayList<>();
+            while (rs.next()) {
+                results.add(mapper.map(rs));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Executes query and maps rows lazily, while stream is consumed. Memory usage doesn't depend on the amount of selected rows.
+     * Stream holds connection and result set open, so it must be closed, preferably with try-with-resources.
+     * While stream is open, its connection can't be used for other queries.
+     * @return Stream of documents
+     */
+    public Stream<T> stream() {
+        if (transaction != null && !transaction.isRunning()) return Stream.empty();
+        OpenQuery query;
         try {
-            DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
-            String query = "SELECT * FROM `" + schema.getTable() + "`";
-            List<Object> values = new ArrayList<>();
-            if (this.where != null) {
-                query += " WHERE " + this.where.compile(schema);
-                values.addAll(this.where.compileValues(schema));
+            query = open();
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        }
+        return StreamSupport.stream(new ResultSetSpliterator<>(query.rs, query.mapper), false).onClose(() -> {
+            try {
+                query.close();
+            } catch (SQLException e) {
+                throw new RuntimeSQLException(e);
             }
-            if (this.order != null) {
-                query += " ORDER BY " + this.order.compile(schema);
+        });
+    }
+
+    /**
+     * Scans selected documents in parallel. Range of primary key is split into contiguous slices, which are streamed concurrently
+     * on separate connections, each filtered by where clause of this builder. Primary key must be single integer field.
+     * Documents come in no particular order, so order and limit can't be set.
+     * Inside transaction, falls back to sequential {@link #stream()} on the connection of transaction.
+     * Stream holds connections of open slices, so it must be closed, preferably with try-with-resources.
+     * Every slice, that is being read, holds its own connection, so connection pool must allow at least as many connections
+     * as parallelism of the common {@link java.util.concurrent.ForkJoinPool}, otherwise slices wait for connections until acquisition timeout.
+     * @param slices Amount of key range slices, usually the amount of threads, that should read table
+     * @return Parallel stream of documents
+     */
+    public Stream<T> parallelScan(int slices) {
+        if (slices < 1) throw new IllegalArgumentException("Amount of slices must be positive");
+        if (this.order != null || this.limitCount >= 0 || this.limitSkip >= 0)
+            throw new InvalidQueryException("Parallel scan doesn't support order and limit");
+        if (transaction != null) return stream();
+        DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
+        DocumentParser.DocumentField key = null;
+        for (DocumentParser.DocumentField field : schema.getFields()) {
+            if (!field.isPrimaryKey()) continue;
+            if (key != null) throw new InvalidQueryException("Parallel scan requires single-field primary key");
+            key = field;
+        }
+        Class<?> keyType = key == null ? null : key.getSerializer().getStorageType().getType();
+        if (keyType != Long.class && keyType != Integer.class && keyType != Short.class && keyType != Byte.class)
+            throw new InvalidQueryException("Parallel scan requires integer primary key");
+        List<DocumentParser.DocumentField> projection = projection(schema, this.fields);
+        String where = this.where == null ? null : this.where.compile(schema);
+        List<Object> whereValues = this.where == null ? new ArrayList<>() : this.where.compileValues(schema);
+        return new ParallelScan<>(db, schema, columns(projection), projection != null, where, whereValues, key, fetchSize).stream(slices);
+    }
+
+    /**
+     * Creates publisher, that reads rows from streaming result set only as subscriber requests them. Every subscription executes query separately.
+     * Reads are done on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * Subscription holds connection and result set open until all rows are read, query fails or subscription is cancelled.
+     * Cancelling subscription also cancels running statement. See {@link #stream()} for fetch size notes.
+     * @return Reactive Streams publisher of documents
+     */
+    public Publisher<T> publish() {
+        return new ResultSetPublisher<>(this, db.getExecutor());
+    }
+
+    /**
+     * Executes query with streaming result set. If transaction of this builder is not running, returns null.
+     * @return Open query, that must be closed after use
+     */
+    OpenQuery open() throws SQLException {
+        if (transaction != null && !transaction.isRunning()) return null;
+        DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
+        CompiledQuery query = compile(schema);
+        Connection connection = db.acquireReadConnection(transaction);
+        PreparedStatement preparedStatement = null;
+        ResultSet rs = null;
+        try {
+            preparedStatement = connection.prepareStatement(query.getSql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(fetchSize);
+            query.bind(preparedStatement);
+            rs = preparedStatement.executeQuery();
+            return new OpenQuery(connection, preparedStatement, rs, schema.rowMapper(rs, this.fields != null));
+        } catch (SQLException | RuntimeException e) {
+            try {
+                close(connection, preparedStatement, rs);
+            } catch (SQLException suppressed) {
+                e.addSuppressed(suppressed);
             }
-            if (this.limitSkip >= 0) {
-                query += " LIMIT " + this.limitSkip + ", " + this.limitCount;
-            } else if (this.limitCount >= 0) {
-                query += " LIMIT " + this.limitCount;
+            throw e;
+        }
+    }
+
+    /**
+     * Query, executed by {@link #open()}. Closing it closes result set and statement, and releases connection.
+     */
+    class OpenQuery implements AutoCloseable {
+        private final Connection connection;
+        final PreparedStatement statement;
+        final ResultSet rs;
+        final RowMapper<T> mapper;
+
+        private OpenQuery(Connection connection, PreparedStatement statement, ResultSet rs, RowMapper<T> mapper) {
+            this.connection = connection;
+            this.statement = statement;
+            this.rs = rs;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            SelectBuilder.this.close(connection, statement, rs);
+        }
+    }
+
+    /**
+     * Streams all selected documents to consumer. See {@link #stream()}.
+     * @param consumer Consumer of documents
+     */
+    public void forEach(Consumer<? super T> consumer) {
+        try (Stream<T> stream = stream()) {
+            stream.forEach(consumer);
+        }
+    }
+
+    private void close(Connection connection, PreparedStatement preparedStatement, ResultSet rs) throws SQLException {
+        SQLException error = null;
+        try {
+            if (rs != null) rs.close();
+        } catch (SQLException e) {
+            error = e;
+        }
+        try {
+            if (preparedStatement != null) preparedStatement.close();
+        } catch (SQLException e) {
+            if (error == null) error = e;
+            else error.addSuppressed(e);
+        } finally {
+            db.releaseReadConnection(transaction, connection);
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * Iterates over selected documents page by page with keyset pagination. See {@link PageCursor}.
+     * Pages are ordered by order of this builder, or by primary key if order is not set. Primary key fields are appended to custom order,
+     * so rows with equal order values are never skipped. Key columns must not contain null values. Limit of this builder is ignored.
+     * @param pageSize Maximum amount of documents in one page
+     * @return Lazy page cursor
+     */
+    public PageCursor<T> pages(int pageSize) {
+        return pages(pageSize, null);
+    }
+
+    /**
+     * Continues keyset pagination from position, saved with {@link PageCursor#getToken()}.
+     * @param pageSize Maximum amount of documents in one page
+     * @param token Continuation token, or null to start from the first page
+     * @return Lazy page cursor
+     */
+    public PageCursor<T> pages(int pageSize, String token) {
+        if (pageSize < 1) throw new IllegalArgumentException("Page size must be positive");
+        DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
+        List<DocumentParser.DocumentField> keys = new ArrayList<>();
+        List<Boolean> descending = new ArrayList<>();
+        if (this.order != null) collectKeys(schema, this.order, keys, descending);
+        for (DocumentParser.DocumentField field : schema.getFields()) {
+            if (field.isPrimaryKey() && !keys.contains(field)) {
+                keys.add(field);
+                descending.add(false);
             }
-            query += ";";
-
-            PreparedStatement preparedStatement = db.getConnection().prepareStatement(query);
-            int i = 1;
-            for (Object value : values) {
-                SupportedTypes.SupportedType type = SupportedTypes.getAnyFieldType(value.getClass());
-                if (type == null) throw new InvalidQueryException("Query contains value of unsupported type " + value.getClass().getName());
-                type.write(preparedStatement, i, value);
-                i++;
+        }
+        if (keys.isEmpty())
+            throw new InvalidQueryException("Keyset pagination requires order or primary key");
+        boolean[] directions = new boolean[descending.size()];
+        for (int i = 0; i < directions.length; i++)
+            directions[i] = descending.get(i);
+        List<DocumentParser.DocumentField> projection = projection(schema, this.fields);
+        if (projection != null)
+            for (DocumentParser.DocumentField key : keys)
+                if (!projection.contains(key)) projection.add(key);
+        String where = this.where == null ? null : this.where.compile(schema);
+        List<Object> whereValues = this.where == null ? new ArrayList<>() : this.where.compileValues(schema);
+        return new PageCursor<>(db, schema, transaction, columns(projection), projection != null, where, whereValues, keys, directions, pageSize, token);
+    }
+
+    private static void collectKeys(DocumentSchema<?> schema, AbstractQueryOrder order, List<DocumentParser.DocumentField> keys, List<Boolean> descending) {
+        if (order instanceof QueryOrderSeveral) {
+            for (AbstractQueryOrder part : ((QueryOrderSeveral) order).getQueries())
+                collectKeys(schema, part, keys, descending);
+            return;
+        }
+        String name;
+        if (order instanceof QueryOrderAsc) name = ((QueryOrderAsc) order).getField();
+        else if (order instanceof QueryOrderDesc) name = ((QueryOrderDesc) order).getField();
+        else throw new InvalidQueryException("Keyset pagination supports only Order.asc, Order.desc and Order.several");
+        String fieldName = schema.toStorageFieldName(name);
+        for (DocumentParser.DocumentField field : schema.getFields()) {
+            if (field.getName().equals(fieldName)) {
+                if (keys.contains(field)) return;
+                keys.add(field);
+                descending.add(order instanceof QueryOrderDesc);
+                return;
             }
+        }
+        throw new InvalidQueryException("Document " + schema.getType().getName() + " does not have field " + fieldName);
+    }
+
+    public List<T> exec() {
+        if (transaction != null && !transaction.isRunning()) return new ArrayList<>();
+        DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
+        EntityCache cache = this.fields == null && this.limitSkip <= 0 && this.limitCount != 0 ? Caching.lookupCache(db, schema, transaction) : null;
+        Object key = cache == null ? null : Caching.lookupKey(schema, this.where);
+        if (key == null) return query(schema);
+        Object[] snapshot = cache.get(key);
+        if (snapshot != null) {
+            List<T> results = new ArrayList<>();
+            results.add(schema.restore(snapshot));
+            return results;
+        }
+        long generation = cache.getGeneration();
+        boolean storable = Caching.storable(db);
+        List<T> results = query(schema);
+        if (storable && results.size() == 1) cache.put(key, schema.snapshot(results.get(0)), generation);
+        return results;
+    }
+
+    private List<T> query(DocumentSchema<T> schema) {
+        CompiledQuery query = compile(schema);
+        QueryCache cache = Caching.resultCache(db, this.cacheTtl, transaction);
+        Object key = cache == null ? null : Caching.resultKey(query);
+        if (key == null) return load(schema, query);
+        Object[][] cached = (Object[][]) cache.get(key);
+        List<T> results = new ArrayList<>();
+        if (cached != null) {
+            for (Object[] snapshot : cached)
+                results.add(schema.restore(snapshot));
+            return results;
+        }
+        long generation = cache.getGeneration(schema.getTable());
+        boolean storable = Caching.storable(db);
+        results = load(schema, query);
+        if (!storable) return results;
+        Object[][] snapshots = new Object[results.size()][];
+        for (int i = 0; i < snapshots.length; i++)
+            snapshots[i] = schema.snapshot(results.get(i));
+        cache.put(schema.getTable(), key, snapshots, snapshots.length, this.cacheTtl.toNanos(), generation);
+        return results;
+    }
+
+    private List<T> load(DocumentSchema<T> schema, CompiledQuery query) {
+        Connection connection = db.acquireReadConnection(transaction);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query.getSql())) {
+            query.bind(preparedStatement);
 
             if (transaction != null) {
                 preparedStatement.execute();
                 return new ArrayList<>();
             }
 
-            ResultSet rs = preparedStatement.executeQuery();
-            List<T> results = new ArrayList<>();
-            while (rs.next()) {
-                results.add(schema.fromResultSet(rs));
-            }
-
-            return results;
+            return read(schema, preparedStatement, this.fields != null);
         } catch (SQLException e) {
             throw new RuntimeSQLException(e);
+        } finally {
+            db.releaseReadConnection(transaction, connection);
         }
     }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<List<T>> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
 }
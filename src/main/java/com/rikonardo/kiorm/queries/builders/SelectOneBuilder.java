@@ -1,22 +1,27 @@
 package com.rikonardo.kiorm.queries.builders;
 
 import com.rikonardo.kiorm.KiORM;
-import com.rikonardo.kiorm.exceptions.InvalidQueryException;
+import com.rikonardo.kiorm.cache.EntityCache;
+import com.rikonardo.kiorm.cache.QueryCache;
 import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
 import com.rikonardo.kiorm.queries.AbstractQueryOrder;
 import com.rikonardo.kiorm.queries.AbstractQueryWhere;
+import com.rikonardo.kiorm.queries.CompiledQuery;
+import com.rikonardo.kiorm.queries.QueryTemplate;
 import com.rikonardo.kiorm.queries.parts.order.QueryOrderSeveral;
 import com.rikonardo.kiorm.serialization.DocumentParser;
 import com.rikonardo.kiorm.serialization.DocumentSchema;
-import com.rikonardo.kiorm.serialization.SupportedTypes;
 import com.rikonardo.kiorm.transactions.TransactionBuilder;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class SelectOneBuilder<T> implements QueryBuilder.ReturnsInstance<T> {
     private final KiORM db;
@@ -27,6 +32,8 @@ public class SelectOneBuilder<T> implements QueryBuilder.ReturnsInstance<T> {
     private AbstractQueryWhere where;
     private AbstractQueryOrder order;
     private int limitSkip = -1, limitCount = -1;
+    private String[] fields;
+    private Duration cacheTtl;
 
     private final TransactionBuilder transaction;
 
@@ -65,47 +72,118 @@ public class SelectOneBuilder<T> implements QueryBuilder.ReturnsInstance<T> {
         return this;
     }
 
+    /**
+     * Selects only specified fields. Other fields of selected document keep values, assigned by document constructor.
+     * @param fields Field names
+     */
+    public SelectOneBuilder<T> fields(String... fields) {
+        this.fields = fields;
+        return this;
+    }
+
+    /**
+     * Caches result of this query in query cache of the database instance, see {@link KiORM#getQueryCache()}.
+     * Result is keyed by compiled SQL and bound values, and dropped after TTL or when any write query changes table of the document.
+     * Ignored inside transactions.
+     * @param ttl How long result is kept in cache
+     */
+    public SelectOneBuilder<T> cached(Duration ttl) {
+        this.cacheTtl = ttl;
+        return this;
+    }
+
+    private CompiledQuery compile(DocumentSchema<T> schema) {
+        StringBuilder query = new StringBuilder("SELECT ").append(SelectBuilder.columns(SelectBuilder.projection(schema, this.fields))).append(" FROM `").append(schema.getTable()).append("`");
+        List<Object> values = new ArrayList<>();
+        if (this.where != null) {
+            query.append(" WHERE ").append(this.where.compile(schema));
+            values.addAll(this.where.compileValues(schema));
+        }
+        if (this.order != null) {
+            query.append(" ORDER BY ").append(this.order.compile(schema));
+        }
+        if (this.limitSkip >= 0) {
+            query.append(" LIMIT ").append(this.limitSkip).append(", ").append(this.limitCount);
+        } else if (this.limitCount >= 0) {
+            query.append(" LIMIT ").append(this.limitCount);
+        }
+        query.append(";");
+        return new CompiledQuery(query.toString(), values);
+    }
+
+    /**
+     * Compiles this query into reusable template. Values of {@link com.rikonardo.kiorm.queries.api.Param} placeholders are bound on every execution.
+     * @return Query template
+     */
+    public QueryTemplate<T> prepare() {
+        DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
+        boolean partial = this.fields != null;
+        return new QueryTemplate<>(db, compile(schema), preparedStatement -> read(schema, preparedStatement, partial), true);
+    }
+
+    private static <T> T read(DocumentSchema<T> schema, PreparedStatement preparedStatement, boolean partial) throws SQLException {
+        try (ResultSet rs = preparedStatement.executeQuery()) {
+            if (rs.next()) {
+                return schema.rowMapper(rs, partial).map(rs);
+            }
+            return null;
+        }
+    }
+
     public T exec() {
         if (transaction != null && !transaction.isRunning()) return null;
-        try {
-            DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
-            String query = "SELECT * FROM `" + schema.getTable() + "`";
-            List<Object> values = new ArrayList<>();
-            if (this.where != null) {
-                query += " WHERE " + this.where.compile(schema);
-                values.addAll(this.where.compileValues(schema));
-            }
-            if (this.order != null) {
-                query += " ORDER BY " + this.order.compile(schema);
-            }
-            if (this.limitSkip >= 0) {
-                query += " LIMIT " + this.limitSkip + ", " + this.limitCount;
-            } else if (this.limitCount >= 0) {
-                query += " LIMIT " + this.limitCount;
-            }
-            query += ";";
-
-            PreparedStatement preparedStatement = db.getConnection().prepareStatement(query);
-            int i = 1;
-            for (Object value : values) {
-                SupportedTypes.SupportedType type = SupportedTypes.getAnyFieldType(value.getClass());
-                if (type == null) throw new InvalidQueryException("Query contains value of unsupported type " + value.getClass().getName());
-                type.write(preparedStatement, i, value);
-                i++;
-            }
+        DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
+        EntityCache cache = this.fields == null && this.limitSkip <= 0 && this.limitCount != 0 ? Caching.lookupCache(db, schema, transaction) : null;
+        Object key = cache == null ? null : Caching.lookupKey(schema, this.where);
+        if (key == null) return query(schema);
+        Object[] snapshot = cache.get(key);
+        if (snapshot != null) return schema.restore(snapshot);
+        long generation = cache.getGeneration();
+        boolean storable = Caching.storable(db);
+        T result = query(schema);
+        if (storable && result != null) cache.put(key, schema.snapshot(result), generation);
+        return result;
+    }
+
+    private T query(DocumentSchema<T> schema) {
+        CompiledQuery query = compile(schema);
+        QueryCache cache = Caching.resultCache(db, this.cacheTtl, transaction);
+        Object key = cache == null ? null : Caching.resultKey(query);
+        if (key == null) return load(schema, query);
+        Object[][] cached = (Object[][]) cache.get(key);
+        if (cached != null) return cached.length == 0 ? null : schema.restore(cached[0]);
+        long generation = cache.getGeneration(schema.getTable());
+        boolean storable = Caching.storable(db);
+        T result = load(schema, query);
+        if (!storable) return result;
+        Object[][] snapshots = result == null ? new Object[0][] : new Object[][] { schema.snapshot(result) };
+        cache.put(schema.getTable(), key, snapshots, 1, this.cacheTtl.toNanos(), generation);
+        return result;
+    }
+
+    private T load(DocumentSchema<T> schema, CompiledQuery query) {
+        Connection connection = db.acquireReadConnection(transaction);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query.getSql())) {
+            query.bind(preparedStatement);
 
             if (transaction != null) {
                 preparedStatement.execute();
                 return null;
             }
 
-            ResultSet rs = preparedStatement.executeQuery();
-            if (rs.next()) {
-                return schema.fromResultSet(rs);
-            }
-            return null;
+            return read(schema, preparedStatement, this.fields != null);
         } catch (SQLException e) {
             throw new RuntimeSQLException(e);
+        } finally {
+            db.releaseReadConnection(transaction, connection);
         }
     }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<T> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
 }
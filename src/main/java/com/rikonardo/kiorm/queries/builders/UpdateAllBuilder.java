@@ -0,0 +1,193 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.exceptions.InvalidDocumentClassException;
+import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
+import com.rikonardo.kiorm.serialization.DocumentParser;
+import com.rikonardo.kiorm.serialization.DocumentSchema;
+import com.rikonardo.kiorm.serialization.WritePlan;
+import com.rikonardo.kiorm.transactions.TransactionBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class UpdateAllBuilder<T> implements QueryBuilder.ReturnsIntArray {
+    /**
+     * Maximum amount of placeholders in one MySQL prepared statement.
+     */
+    private static final int MAX_PARAMETERS = 65535;
+
+    private final KiORM db;
+    private final Collection<T> targets;
+    private final DocumentParser.NameModifier tableNameModifier;
+    private final DocumentParser.NameModifier fieldNameModifier;
+
+    private Mode mode = Mode.CASE;
+    private int chunkSize = 1000;
+
+    private final TransactionBuilder transaction;
+
+    public UpdateAllBuilder(KiORM db, Collection<T> targets, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier, TransactionBuilder transaction) {
+        this.db = db;
+        this.targets = targets;
+        this.tableNameModifier = tableNameModifier;
+        this.fieldNameModifier = fieldNameModifier;
+        this.transaction = transaction;
+    }
+
+    /**
+     * @param mode How documents of one chunk are sent to the database. Default is {@link Mode#CASE}.
+     */
+    public UpdateAllBuilder<T> mode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * @param chunkSize Maximum amount of documents, sent to the database at once. Default is 1000.
+     */
+    public UpdateAllBuilder<T> chunkSize(int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be positive");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Updates all documents by their primary keys.
+     * @return Affected rows count of every chunk
+     */
+    public int[] exec() {
+        if (transaction != null && !transaction.isRunning()) return new int[0];
+        if (targets.isEmpty()) return new int[0];
+        DocumentSchema<T> schema = (DocumentSchema<T>) DocumentParser.schema(this.targets.iterator().next().getClass(), this.tableNameModifier, this.fieldNameModifier);
+        if (schema.getUpdatePlan() == null)
+            throw new InvalidDocumentClassException("Document must have primary key in order to be used in update operations");
+        List<T> chunk = new ArrayList<>();
+        List<Integer> results = new ArrayList<>();
+        Connection connection = db.acquireConnection(transaction);
+        try {
+            if (mode == Mode.BATCH) {
+                try (PreparedStatement preparedStatement = connection.prepareStatement(schema.getUpdatePlan().getSql())) {
+                    for (T target : targets) {
+                        chunk.add(target);
+                        if (chunk.size() == chunkSize) results.add(executeBatch(schema, preparedStatement, chunk));
+                    }
+                    if (!chunk.isEmpty()) results.add(executeBatch(schema, preparedStatement, chunk));
+                }
+            } else {
+                int keys = schema.getKeyPlan().getParameterCount();
+                int perRow = schema.getColumnPlans().size() * (keys + 1) + keys;
+                int size = Math.max(1, Math.min(chunkSize, MAX_PARAMETERS / perRow));
+                for (T target : targets) {
+                    chunk.add(target);
+                    if (chunk.size() == size) results.add(executeCase(schema, connection, chunk));
+                }
+                if (!chunk.isEmpty()) results.add(executeCase(schema, connection, chunk));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        } finally {
+            for (T target : this.targets)
+                schema.untrack(target);
+            Caching.invalidate(db, schema, this.targets, transaction);
+            db.releaseConnection(transaction, connection);
+        }
+        int[] counts = new int[results.size()];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = results.get(i);
+        return counts;
+    }
+
+    private static <T> int executeBatch(DocumentSchema<T> schema, PreparedStatement preparedStatement, List<T> chunk) throws SQLException {
+        for (T target : chunk) {
+            schema.getUpdatePlan().bind(preparedStatement, target);
+            preparedStatement.addBatch();
+        }
+        chunk.clear();
+        int rows = 0;
+        for (int count : preparedStatement.executeBatch()) {
+            if (count == Statement.SUCCESS_NO_INFO) return Statement.SUCCESS_NO_INFO;
+            rows += count;
+        }
+        return rows;
+    }
+
+    private static <T> int executeCase(DocumentSchema<T> schema, Connection connection, List<T> chunk) throws SQLException {
+        WritePlan<T> keyPlan = schema.getKeyPlan();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(caseSql(schema, chunk.size()))) {
+            int index = 1;
+            for (WritePlan<T> column : schema.getColumnPlans()) {
+                for (T target : chunk) {
+                    index = keyPlan.bind(preparedStatement, target, index);
+                    index = column.bind(preparedStatement, target, index);
+                }
+            }
+            for (T target : chunk)
+                index = keyPlan.bind(preparedStatement, target, index);
+            chunk.clear();
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * Builds {@code UPDATE ... SET col = CASE ... END} statement. For every column, key and value of every row are bound in sequence,
+     * then keys of all rows are bound for {@code IN} condition.
+     * @param rows Amount of updated rows
+     * @return SQL query
+     */
+    static String caseSql(DocumentSchema<?> schema, int rows) {
+        WritePlan<?> keyPlan = schema.getKeyPlan();
+        boolean singleKey = keyPlan.getParameterCount() == 1;
+        String when = singleKey ? " WHEN ? THEN ?" : " WHEN " + schema.getKeyCondition() + " THEN ?";
+
+        StringBuilder query = new StringBuilder("UPDATE `").append(schema.getTable()).append("` SET ");
+        for (int i = 0; i < schema.getColumnPlans().size(); i++) {
+            String column = schema.getColumnPlans().get(i).getSql();
+            if (i > 0) query.append(", ");
+            query.append(column).append(" = CASE");
+            if (singleKey) query.append(' ').append(keyPlan.getSql());
+            for (int j = 0; j < rows; j++) query.append(when);
+            query.append(" ELSE ").append(column).append(" END");
+        }
+        query.append(" WHERE ").append(singleKey ? keyPlan.getSql() : "(" + keyPlan.getSql() + ")").append(" IN (");
+        String row = singleKey ? "?" : "(" + placeholders(keyPlan.getParameterCount()) + ")";
+        for (int j = 0; j < rows; j++) {
+            if (j > 0) query.append(", ");
+            query.append(row);
+        }
+        return query.append(");").toString();
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder placeholders = new StringBuilder("?");
+        for (int i = 1; i < count; i++) placeholders.append(", ?");
+        return placeholders.toString();
+    }
+
+    public enum Mode {
+        /**
+         * Every chunk is sent as JDBC batch of single-row updates.
+         * Add {@code rewriteBatchedStatements=true} to connection URL to let MySQL driver send them in one round-trip.
+         */
+        BATCH,
+        /**
+         * Every chunk is sent as one {@code UPDATE ... SET col = CASE pk WHEN ? THEN ? ... END WHERE pk IN (...)} statement.
+         * Chunks are shrunk if needed to fit MySQL limit of 65535 placeholders per statement.
+         */
+        CASE
+    }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<int[]> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
+}
@@ -1,20 +1,22 @@
 package com.rikonardo.kiorm.queries.builders;
 
 import com.rikonardo.kiorm.KiORM;
-import com.rikonardo.kiorm.exceptions.InvalidQueryException;
 import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
 import com.rikonardo.kiorm.queries.AbstractQueryWhere;
+import com.rikonardo.kiorm.queries.CompiledQuery;
+import com.rikonardo.kiorm.queries.QueryTemplate;
 import com.rikonardo.kiorm.serialization.DocumentParser;
 import com.rikonardo.kiorm.serialization.DocumentSchema;
-import com.rikonardo.kiorm.serialization.SupportedTypes;
 import com.rikonardo.kiorm.transactions.TransactionBuilder;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public class UpdateBuilder<T> implements QueryBuilder.ReturnsInt {
@@ -33,7 +35,7 @@ public class UpdateBuilder<T> implements QueryBuilder.ReturnsInt {
         this.target = target;
         this.tableNameModifier = tableNameModifier;
         this.fieldNameModifier = fieldNameModifier;
-        this.fields = new HashMap<>();
+        this.fields = new LinkedHashMap<>();
         this.transaction = transaction;
     }
 
@@ -47,37 +49,66 @@ public class UpdateBuilder<T> implements QueryBuilder.ReturnsInt {
         return this;
     }
 
-    public int exec() {
-        if (transaction != null && !transaction.isRunning()) return 0;
-        try {
-            DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
-            List<Object> values = new ArrayList<>();
-            String query = "UPDATE `" + schema.getTable() + "` SET " +
-                    fields.keySet().stream().map(k -> { values.add(schema.toStorageFieldValue(k, fields.get(k))); return "`" + schema.toStorageFieldName(k) + "` = ?"; }).collect(Collectors.joining(", "));
+    private CompiledQuery compile(DocumentSchema<T> schema) {
+        List<Object> values = new ArrayList<>();
+        StringBuilder query = new StringBuilder("UPDATE `").append(schema.getTable()).append("` SET ").append(
+                fields.keySet().stream().map(k -> { values.add(schema.toStorageFieldValue(k, fields.get(k))); return "`" + schema.toStorageFieldName(k) + "` = ?"; }).collect(Collectors.joining(", ")));
 
-            if (this.where != null) {
-                query += " WHERE " + this.where.compile(schema);
-                values.addAll(this.where.compileValues(schema));
-            }
-            query += ";";
+        if (this.where != null) {
+            query.append(" WHERE ").append(this.where.compile(schema));
+            values.addAll(this.where.compileValues(schema));
+        }
+        query.append(";");
+        return new CompiledQuery(query.toString(), values);
+    }
 
-            PreparedStatement preparedStatement = db.getConnection().prepareStatement(query);
-            int i = 1;
-            for (Object value : values) {
-                SupportedTypes.SupportedType type = SupportedTypes.getAnyFieldType(value.getClass());
-                if (type == null) throw new InvalidQueryException("Query contains value of unsupported type " + value.getClass().getName());
-                type.write(preparedStatement, i, value);
-                i++;
+    /**
+     * Compiles this query into reusable template. Values of {@link com.rikonardo.kiorm.queries.api.Param} placeholders are bound on every execution.
+     * @return Query template
+     */
+    public QueryTemplate<Integer> prepare() {
+        DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
+        return new QueryTemplate<>(db, compile(schema), preparedStatement -> {
+            try {
+                return preparedStatement.executeUpdate();
+            } finally {
+                Caching.invalidateAll(db, schema, null);
             }
+        });
+    }
 
-            if (transaction != null) {
-                preparedStatement.execute();
+    public int exec() {
+        if (transaction != null && !transaction.isRunning()) return 0;
+        DocumentSchema<T> schema = DocumentParser.schema(this.target, this.tableNameModifier, this.fieldNameModifier);
+        CompiledQuery query = compile(schema);
+        if (transaction != null) {
+            try {
+                transaction.batch(query.getSql(), query::bind);
                 return 0;
+            } catch (SQLException e) {
+                throw new RuntimeSQLException(e);
+            } finally {
+                Caching.invalidateAll(db, schema, transaction);
             }
+        }
+        Connection connection = db.acquireConnection(transaction);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query.getSql())) {
+            query.bind(preparedStatement);
 
             return preparedStatement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeSQLException(e);
+        } finally {
+            Caching.invalidateAll(db, schema, transaction);
+            db.releaseConnection(transaction, connection);
         }
     }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<Integer> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
 }
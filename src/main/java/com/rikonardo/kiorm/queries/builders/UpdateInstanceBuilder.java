@@ -2,17 +2,17 @@ package com.rikonardo.kiorm.queries.builders;
 
 import com.rikonardo.kiorm.KiORM;
 import com.rikonardo.kiorm.exceptions.InvalidDocumentClassException;
-import com.rikonardo.kiorm.exceptions.InvalidQueryException;
 import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
 import com.rikonardo.kiorm.serialization.DocumentParser;
 import com.rikonardo.kiorm.serialization.DocumentSchema;
-import com.rikonardo.kiorm.serialization.SupportedTypes;
+import com.rikonardo.kiorm.serialization.WritePlan;
 import com.rikonardo.kiorm.transactions.TransactionBuilder;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 public class UpdateInstanceBuilder<T> implements QueryBuilder.ReturnsInt {
     private final KiORM db;
@@ -30,41 +30,63 @@ public class UpdateInstanceBuilder<T> implements QueryBuilder.ReturnsInt {
         this.transaction = transaction;
     }
 
+    /**
+     * Updates document by its primary key. If changes of document class are tracked (see {@link com.rikonardo.kiorm.annotations.TrackChanges}),
+     * only fields, changed since document was loaded or written, are updated, and no query is sent if nothing has changed.
+     * @return Affected rows count
+     */
     public int exec() {
         if (transaction != null && !transaction.isRunning()) return 0;
-        try {
-            DocumentSchema<T> schema = (DocumentSchema<T>) DocumentParser.schema(this.target.getClass(), this.tableNameModifier, this.fieldNameModifier);
-            Map<String, Object> fields = schema.mapWithoutId(this.target);
-            Map<String, Object> keys = schema.mapKeysOnly(this.target);
-            if (keys.size() == 0)
-                throw new InvalidDocumentClassException("Document must have primary key in order to be used in update operations");
-            String query = "UPDATE `" + schema.getTable() + "` SET " +
-                    fields.keySet().stream().map(k -> "`" + k + "` = ?").collect(Collectors.joining(", ")) + " WHERE " +
-                    keys.keySet().stream().map(k -> "`" + k + "` = ?").collect(Collectors.joining(", ")) + ";";
-
-            PreparedStatement preparedStatement = db.getConnection().prepareStatement(query);
-            int i = 1;
-            for (String key : fields.keySet()) {
-                SupportedTypes.SupportedType type = schema.getFieldType(key);
-                if (type == null) throw new InvalidQueryException("Query contains value of unsupported type " + fields.get(key).getClass().getName());
-                type.write(preparedStatement, i, fields.get(key));
-                i++;
-            }
-            for (String key : keys.keySet()) {
-                SupportedTypes.SupportedType type = schema.getFieldType(key);
-                if (type == null) throw new InvalidQueryException("Query contains value of unsupported type " + keys.get(key).getClass().getName());
-                type.write(preparedStatement, i, keys.get(key));
-                i++;
-            }
-
-            if (transaction != null) {
-                preparedStatement.execute();
+        DocumentSchema<T> schema = (DocumentSchema<T>) DocumentParser.schema(this.target.getClass(), this.tableNameModifier, this.fieldNameModifier);
+        WritePlan<T> plan = schema.getUpdatePlan();
+        if (plan == null)
+            throw new InvalidDocumentClassException("Document must have primary key in order to be used in update operations");
+        Object[] snapshot = schema.isTrackingChanges() ? schema.snapshot(this.target) : null;
+        int[] changed = snapshot == null ? null : schema.changedFields(this.target, snapshot);
+        if (changed != null && changed.length == 0) return 0;
+        String query = changed == null ? plan.getSql() : schema.updateSql(changed);
+        if (transaction != null) {
+            try {
+                transaction.batch(query, preparedStatement -> bind(preparedStatement, schema, changed, snapshot));
                 return 0;
+            } catch (SQLException e) {
+                throw new RuntimeSQLException(e);
+            } finally {
+                schema.untrack(this.target);
+                Caching.invalidate(db, schema, Collections.singletonList(this.target), transaction);
             }
+        }
+        Connection connection = db.acquireConnection(transaction);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            bind(preparedStatement, schema, changed, snapshot);
 
-            return preparedStatement.executeUpdate();
+            int rows = preparedStatement.executeUpdate();
+            if (snapshot != null) schema.track(this.target, snapshot);
+            return rows;
         } catch (SQLException e) {
             throw new RuntimeSQLException(e);
+        } finally {
+            Caching.invalidate(db, schema, Collections.singletonList(this.target), transaction);
+            db.releaseConnection(transaction, connection);
         }
     }
+
+    private void bind(PreparedStatement preparedStatement, DocumentSchema<T> schema, int[] changed, Object[] snapshot) throws SQLException {
+        if (changed == null) {
+            schema.getUpdatePlan().bind(preparedStatement, this.target);
+            return;
+        }
+        int index = 1;
+        for (int field : changed)
+            schema.getFields().get(field).getSerializer().getStorageType().write(preparedStatement, index++, snapshot[field]);
+        schema.getKeyPlan().bind(preparedStatement, this.target, index);
+    }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<Integer> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
 }
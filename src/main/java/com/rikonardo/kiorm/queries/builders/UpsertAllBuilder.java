@@ -0,0 +1,197 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.exceptions.InvalidDocumentClassException;
+import com.rikonardo.kiorm.exceptions.InvalidQueryException;
+import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
+import com.rikonardo.kiorm.serialization.DocumentParser;
+import com.rikonardo.kiorm.serialization.DocumentSchema;
+import com.rikonardo.kiorm.serialization.WritePlan;
+import com.rikonardo.kiorm.transactions.TransactionBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class UpsertAllBuilder<T> implements QueryBuilder.ReturnsIntArray {
+    /**
+     * Maximum amount of placeholders in one MySQL prepared statement.
+     */
+    private static final int MAX_PARAMETERS = 65535;
+
+    private final KiORM db;
+    private final Collection<T> targets;
+    private final DocumentParser.NameModifier tableNameModifier;
+    private final DocumentParser.NameModifier fieldNameModifier;
+
+    private Mode mode = Mode.BATCH;
+    private int chunkSize = 1000;
+    private String[] overwrite;
+
+    private final TransactionBuilder transaction;
+
+    public UpsertAllBuilder(KiORM db, Collection<T> targets, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier, TransactionBuilder transaction) {
+        this.db = db;
+        this.targets = targets;
+        this.tableNameModifier = tableNameModifier;
+        this.fieldNameModifier = fieldNameModifier;
+        this.transaction = transaction;
+    }
+
+    /**
+     * @param mode How documents of one chunk are sent to the database. Default is {@link Mode#BATCH}.
+     */
+    public UpsertAllBuilder<T> mode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * @param chunkSize Maximum amount of documents, sent to the database at once. Default is 1000.
+     */
+    public UpsertAllBuilder<T> chunkSize(int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be positive");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * @param fields Fields, overwritten when row already exists. By default, all fields except primary keys are overwritten.
+     */
+    public UpsertAllBuilder<T> overwrite(String... fields) {
+        this.overwrite = fields;
+        return this;
+    }
+
+    /**
+     * Inserts all documents, updating rows that conflict with them by primary key or unique fields.
+     * In {@link Mode#BATCH} mode generated keys are written back to every document.
+     * @return Affected rows count of every chunk. MySQL counts 1 for inserted row and 2 for updated one.
+     */
+    public int[] exec() {
+        if (transaction != null && !transaction.isRunning()) return new int[0];
+        if (targets.isEmpty()) return new int[0];
+        DocumentSchema<T> schema = (DocumentSchema<T>) DocumentParser.schema(this.targets.iterator().next().getClass(), this.tableNameModifier, this.fieldNameModifier);
+        List<DocumentParser.DocumentField> overwriteFields = overwriteFields(schema, overwrite);
+        WritePlan<T> plan = schema.getUpsertPlan();
+        List<T> chunk = new ArrayList<>();
+        List<Integer> results = new ArrayList<>();
+        Connection connection = db.acquireConnection(transaction);
+        try {
+            if (mode == Mode.BATCH) {
+                try (PreparedStatement preparedStatement = connection.prepareStatement(schema.upsertSql(1, overwriteFields), Statement.RETURN_GENERATED_KEYS)) {
+                    for (T target : targets) {
+                        chunk.add(target);
+                        if (chunk.size() == chunkSize) results.add(executeBatch(schema, plan, preparedStatement, chunk));
+                    }
+                    if (!chunk.isEmpty()) results.add(executeBatch(schema, plan, preparedStatement, chunk));
+                }
+            } else {
+                int size = Math.max(1, Math.min(chunkSize, MAX_PARAMETERS / Math.max(1, plan.getParameterCount())));
+                for (T target : targets) {
+                    chunk.add(target);
+                    if (chunk.size() == size) results.add(executeMultiRow(schema, plan, overwriteFields, connection, chunk));
+                }
+                if (!chunk.isEmpty()) results.add(executeMultiRow(schema, plan, overwriteFields, connection, chunk));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        } finally {
+            for (T target : this.targets)
+                schema.untrack(target);
+            Caching.invalidate(db, schema, this.targets, transaction);
+            db.releaseConnection(transaction, connection);
+        }
+        int[] counts = new int[results.size()];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = results.get(i);
+        return counts;
+    }
+
+    private static <T> int executeBatch(DocumentSchema<T> schema, WritePlan<T> plan, PreparedStatement preparedStatement, List<T> chunk) throws SQLException {
+        for (T target : chunk) {
+            plan.bind(preparedStatement, target);
+            preparedStatement.addBatch();
+        }
+        int rows = 0;
+        for (int count : preparedStatement.executeBatch()) {
+            if (count == Statement.SUCCESS_NO_INFO) {
+                rows = Statement.SUCCESS_NO_INFO;
+                break;
+            }
+            rows += count;
+        }
+        try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+            for (T target : chunk) {
+                if (!generatedKeys.next()) break;
+                schema.fillKey(generatedKeys, target);
+            }
+        }
+        chunk.clear();
+        return rows;
+    }
+
+    private static <T> int executeMultiRow(DocumentSchema<T> schema, WritePlan<T> plan, List<DocumentParser.DocumentField> overwriteFields, Connection connection, List<T> chunk) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(schema.upsertSql(chunk.size(), overwriteFields))) {
+            int index = 1;
+            for (T target : chunk)
+                index = plan.bind(preparedStatement, target, index);
+            chunk.clear();
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * Resolves fields, overwritten on conflict.
+     * @param names Field names, or null to overwrite all fields except primary keys
+     */
+    static List<DocumentParser.DocumentField> overwriteFields(DocumentSchema<?> schema, String[] names) {
+        boolean hasKeys = false;
+        for (DocumentParser.DocumentField field : schema.getFields())
+            if (field.isPrimaryKey() || field.getUniqueKey() != null) hasKeys = true;
+        if (!hasKeys)
+            throw new InvalidDocumentClassException("Document must have primary key or unique fields in order to be used in upsert operations");
+        List<DocumentParser.DocumentField> fields = new ArrayList<>();
+        if (names == null) {
+            for (DocumentParser.DocumentField field : schema.getFields())
+                if (!field.isPrimaryKey()) fields.add(field);
+            return fields;
+        }
+        for (String name : names) {
+            String fieldName = schema.toStorageFieldName(name);
+            DocumentParser.DocumentField found = null;
+            for (DocumentParser.DocumentField field : schema.getFields())
+                if (field.getName().equals(fieldName)) found = field;
+            if (found == null) throw new InvalidQueryException("Document " + schema.getType().getName() + " does not have field " + fieldName);
+            if (found.isAutoIncrement()) throw new InvalidQueryException("Auto-increment field " + fieldName + " can't be overwritten");
+            fields.add(found);
+        }
+        return fields;
+    }
+
+    public enum Mode {
+        /**
+         * Every chunk is sent as JDBC batch of single-row upserts. Generated keys are written back to documents.
+         */
+        BATCH,
+        /**
+         * Every chunk is sent as one multi-row upsert. Generated keys are not written back,
+         * because MySQL reports only the first one and rows may be either inserted or updated.
+         */
+        MULTI_ROW
+    }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<int[]> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
+}
@@ -0,0 +1,92 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
+import com.rikonardo.kiorm.serialization.DocumentParser;
+import com.rikonardo.kiorm.serialization.DocumentSchema;
+import com.rikonardo.kiorm.transactions.TransactionBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+public class UpsertBuilder<T> implements QueryBuilder.ReturnsInt {
+    private final KiORM db;
+    private final T target;
+    private final DocumentParser.NameModifier tableNameModifier;
+    private final DocumentParser.NameModifier fieldNameModifier;
+
+    private String[] overwrite;
+
+    private final TransactionBuilder transaction;
+
+    public UpsertBuilder(KiORM db, T target, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier, TransactionBuilder transaction) {
+        this.db = db;
+        this.target = target;
+        this.tableNameModifier = tableNameModifier;
+        this.fieldNameModifier = fieldNameModifier;
+        this.transaction = transaction;
+    }
+
+    /**
+     * @param fields Fields, overwritten when row already exists. By default, all fields except primary keys are overwritten.
+     */
+    public UpsertBuilder<T> overwrite(String... fields) {
+        this.overwrite = fields;
+        return this;
+    }
+
+    /**
+     * Inserts document, or updates row that conflicts with it by primary key or unique fields.
+     * Auto-increment key of inserted or updated row is written back to document.
+     * @return 1 if row was inserted, 2 if existing row was updated, 0 if existing row already had the same values
+     */
+    public int exec() {
+        if (transaction != null && !transaction.isRunning()) return 0;
+        DocumentSchema<T> schema = (DocumentSchema<T>) DocumentParser.schema(this.target.getClass(), this.tableNameModifier, this.fieldNameModifier);
+        String query = schema.upsertSql(1, UpsertAllBuilder.overwriteFields(schema, overwrite));
+        if (transaction != null) {
+            try {
+                transaction.batch(query, preparedStatement -> schema.getUpsertPlan().bind(preparedStatement, this.target));
+                return 0;
+            } catch (SQLException e) {
+                throw new RuntimeSQLException(e);
+            } finally {
+                schema.untrack(this.target);
+                Caching.invalidate(db, schema, Collections.singletonList(this.target), transaction);
+            }
+        }
+        Connection connection = db.acquireConnection(transaction);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            schema.getUpsertPlan().bind(preparedStatement, this.target);
+
+            int rows = preparedStatement.executeUpdate();
+
+            try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                if(generatedKeys.next()) {
+                    schema.fillKey(generatedKeys, this.target);
+                }
+            }
+
+            return rows;
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        } finally {
+            schema.untrack(this.target);
+            Caching.invalidate(db, schema, Collections.singletonList(this.target), transaction);
+            db.releaseConnection(transaction, connection);
+        }
+    }
+
+    /**
+     * Executes this query on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<Integer> execAsync() {
+        return CompletableFuture.supplyAsync(this::exec, db.getExecutor());
+    }
+}
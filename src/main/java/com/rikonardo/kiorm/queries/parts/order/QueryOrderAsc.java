@@ -5,13 +5,14 @@ import com.rikonardo.kiorm.queries.AbstractQueryOrder;
 import com.rikonardo.kiorm.queries.AbstractQueryWhere;
 import com.rikonardo.kiorm.serialization.DocumentSchema;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @AllArgsConstructor
 public class QueryOrderAsc extends AbstractQueryOrder {
-    private final String field;
+    @Getter private final String field;
 
     @Override
     public String compile(DocumentSchema<?> schema) {
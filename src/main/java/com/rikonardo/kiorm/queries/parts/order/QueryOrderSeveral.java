@@ -5,6 +5,7 @@ import com.rikonardo.kiorm.queries.AbstractQueryOrder;
 import com.rikonardo.kiorm.queries.AbstractQueryWhere;
 import com.rikonardo.kiorm.serialization.DocumentSchema;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,7 +13,7 @@ import java.util.stream.Collectors;
 
 @AllArgsConstructor
 public class QueryOrderSeveral extends AbstractQueryOrder {
-    private final List<AbstractQueryOrder> queries;
+    @Getter private final List<AbstractQueryOrder> queries;
 
     @Override
     public String compile(DocumentSchema<?> schema) {
@@ -4,6 +4,7 @@ import com.rikonardo.kiorm.queries.AbstractQuery;
 import com.rikonardo.kiorm.queries.AbstractQueryWhere;
 import com.rikonardo.kiorm.serialization.DocumentSchema;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,7 +12,7 @@ import java.util.stream.Collectors;
 
 @AllArgsConstructor
 public class QueryWhereAnd extends AbstractQueryWhere {
-    private final List<AbstractQueryWhere> queries;
+    @Getter private final List<AbstractQueryWhere> queries;
 
     @Override
     public String compile(DocumentSchema<?> schema) {
@@ -3,6 +3,7 @@ package com.rikonardo.kiorm.queries.parts.where;
 import com.rikonardo.kiorm.queries.AbstractQueryWhere;
 import com.rikonardo.kiorm.serialization.DocumentSchema;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -10,8 +11,8 @@ import java.util.List;
 
 @AllArgsConstructor
 public class QueryWhereEquals extends AbstractQueryWhere {
-    private final String field;
-    private final Object value;
+    @Getter private final String field;
+    @Getter private final Object value;
 
     @Override
     public String compile(DocumentSchema<?> schema) {
@@ -11,7 +11,7 @@ import java.util.List;
 @AllArgsConstructor
 public class QueryWhereLike extends AbstractQueryWhere {
     private final String field;
-    private final String template;
+    private final Object template;
 
     @Override
     public String compile(DocumentSchema<?> schema) {
@@ -0,0 +1,212 @@
+package com.rikonardo.kiorm.replication;
+
+import com.rikonardo.kiorm.pool.ConnectionPool;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read replicas of the database. Queries, that only read data, borrow connections from replicas,
+ * while writes and transactions always use primary data source.
+ * After a write, reads of the same thread go to primary during read-your-writes window, so thread sees its own changes
+ * even if replicas are lagging behind.
+ */
+public class ReplicaSet {
+    public enum Balancing {
+        /**
+         * Replicas are used one after another
+         */
+        ROUND_ROBIN,
+        /**
+         * Replica with the least amount of borrowed connections is used, ties are broken in round-robin order
+         */
+        LEAST_OUTSTANDING
+    }
+
+    /**
+     * Strategy of choosing replica for each read query. Round-robin by default.
+     */
+    @Getter @Setter private volatile Balancing balancing = Balancing.ROUND_ROBIN;
+
+    private volatile long readYourWritesNanos = 0;
+
+    private final List<Replica> replicas = new CopyOnWriteArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<long[]> lastWrite = ThreadLocal.withInitial(() -> new long[]{0});
+    /**
+     * Time of the last write of any thread, or 0 if there were no writes
+     */
+    private volatile long lastAnyWrite = 0;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+
+    /**
+     * Adds replica to this set.
+     * @param dataSource Data source of replica
+     * @param owned Whether data source should be closed by {@link #close()}
+     */
+    public void add(DataSource dataSource, boolean owned) {
+        replicas.add(new Replica(dataSource, owned));
+    }
+
+    /**
+     * @return Amount of replicas
+     */
+    public int size() {
+        return replicas.size();
+    }
+
+    /**
+     * Sets read-your-writes window. Zero disables it, so reads go to replicas right after writes.
+     * @param window Time, during which reads of the thread, that made write, go to primary
+     */
+    public void setReadYourWritesWindow(Duration window) {
+        this.readYourWritesNanos = window.toNanos();
+    }
+
+    /**
+     * @return Time, during which reads of the thread, that made write, go to primary
+     */
+    public Duration getReadYourWritesWindow() {
+        return Duration.ofNanos(readYourWritesNanos);
+    }
+
+    /**
+     * Records time of write and starts read-your-writes window for current thread. Called when write query releases its connection.
+     */
+    public void markWrite() {
+        if (replicas.isEmpty()) return;
+        long now = System.nanoTime() | 1;
+        lastAnyWrite = now;
+        if (readYourWritesNanos > 0) lastWrite.get()[0] = now;
+    }
+
+    /**
+     * @return true if reads of current thread should go to primary, because there are no replicas, or read-your-writes window is open
+     */
+    public boolean isPinnedToPrimary() {
+        if (replicas.isEmpty()) return true;
+        long window = readYourWritesNanos;
+        if (window <= 0) return false;
+        long written = lastWrite.get()[0];
+        return written != 0 && System.nanoTime() - written < window;
+    }
+
+    /**
+     * Checks, if read, that starts now, may be served by replica, which hasn't received recent writes yet.
+     * Replica lag is assumed to be shorter than read-your-writes window, so without the window every replica read may be stale.
+     * Results of such reads must not be stored in caches, otherwise stale rows outlive invalidation of written documents.
+     * @return true if result of read, that starts now, may be stale
+     */
+    public boolean mayServeStale() {
+        if (isPinnedToPrimary()) return false;
+        long window = readYourWritesNanos;
+        if (window <= 0) return true;
+        long written = lastAnyWrite;
+        return written != 0 && System.nanoTime() - written < window;
+    }
+
+    /**
+     * Counts read, that was sent to primary instead of replica.
+     */
+    public void countPrimaryRead() {
+        primaryReads.increment();
+    }
+
+    /**
+     * Borrows connection from one of replicas, chosen by {@link #getBalancing()}.
+     * @return JDBC connection, that must be closed after use
+     * @throws SQLException If unable to obtain connection
+     * @throws IllegalStateException If there are no replicas
+     */
+    public Connection getConnection() throws SQLException {
+        Replica replica = choose();
+        replica.outstanding.incrementAndGet();
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            replicaReads.increment();
+            return replica.wrap(connection);
+        } catch (SQLException | RuntimeException e) {
+            replica.outstanding.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private Replica choose() {
+        List<Replica> replicas = this.replicas;
+        int size = replicas.size();
+        if (size == 0) throw new IllegalStateException("There are no replicas");
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        if (balancing == Balancing.ROUND_ROBIN) return replicas.get(start);
+        Replica best = null;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (best == null || replica.outstanding.get() < best.outstanding.get())
+                best = replica;
+        }
+        return best;
+    }
+
+    /**
+     * @return Amount of read queries, that were sent to replicas
+     */
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    /**
+     * @return Amount of read queries, that were sent to primary because of read-your-writes window
+     */
+    public long getPrimaryReads() {
+        return primaryReads.sum();
+    }
+
+    /**
+     * Removes all replicas and closes connection pools, created for them.
+     */
+    public void close() {
+        for (Replica replica : replicas)
+            if (replica.owned && replica.dataSource instanceof ConnectionPool)
+                ((ConnectionPool) replica.dataSource).close();
+        replicas.clear();
+    }
+
+    private static class Replica {
+        private final DataSource dataSource;
+        private final boolean owned;
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private Replica(DataSource dataSource, boolean owned) {
+            this.dataSource = dataSource;
+            this.owned = owned;
+        }
+
+        /**
+         * @return Proxy of connection, that decrements outstanding connections counter once closed
+         */
+        private Connection wrap(Connection connection) {
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                if (method.getName().equals("close") && method.getParameterCount() == 0 && closed.compareAndSet(false, true))
+                    outstanding.decrementAndGet();
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+    }
+}
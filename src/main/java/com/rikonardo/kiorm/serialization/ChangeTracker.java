@@ -0,0 +1,75 @@
+package com.rikonardo.kiorm.serialization;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Snapshots of tracked documents, keyed by instance identity. Instances are referenced weakly,
+ * so snapshots of documents, that are no longer used by the application, are dropped after garbage collection.
+ */
+class ChangeTracker {
+    private final Map<InstanceReference, Object[]> snapshots = new HashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    void put(Object instance, Object[] snapshot) {
+        lock.lock();
+        try {
+            expunge();
+            snapshots.put(new InstanceReference(instance, collected), snapshot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Object[] get(Object instance) {
+        lock.lock();
+        try {
+            expunge();
+            return snapshots.get(new InstanceReference(instance, null));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void remove(Object instance) {
+        lock.lock();
+        try {
+            expunge();
+            snapshots.remove(new InstanceReference(instance, null));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void expunge() {
+        Object reference;
+        while ((reference = collected.poll()) != null)
+            snapshots.remove(reference);
+    }
+
+    private static class InstanceReference extends WeakReference<Object> {
+        private final int hash;
+
+        private InstanceReference(Object instance, ReferenceQueue<Object> queue) {
+            super(instance, queue);
+            this.hash = System.identityHashCode(instance);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof InstanceReference)) return false;
+            Object instance = get();
+            return instance != null && instance == ((InstanceReference) other).get();
+        }
+    }
+}
@@ -11,22 +11,44 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @UtilityClass
 public class DocumentParser {
-    @Getter private static final List<CachedDocumentSchema<?>> cache = new ArrayList<>();
+    public static final String GENERATED_SCHEMA_SUFFIX = "_KiORMSchema";
+
+    private static final Map<CacheKey, DocumentSchema<?>> registry = new ConcurrentHashMap<>();
+    /**
+     * Initialized once from java property {@code "kiorm.disableDocumentSchemaCache"}.
+     */
+    @Getter @Setter private static volatile boolean cacheEnabled = !"true".equalsIgnoreCase(System.getProperty("kiorm.disableDocumentSchemaCache"));
+
+    /**
+     * @return Live view of all cached schemas. Removing elements from it evicts them from cache.
+     */
+    public static Collection<DocumentSchema<?>> getCache() {
+        return registry.values();
+    }
 
     public static <T> DocumentSchema<T> schema(Class<T> clazz) {
         return schema(clazz, null, null);
     }
 
     public static <T> DocumentSchema<T> schema(Class<T> clazz, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier) {
-        String disableCacheProperty = System.getProperty("kiorm.disableDocumentSchemaCache");
-        boolean cacheEnabled = disableCacheProperty == null || !disableCacheProperty.equalsIgnoreCase("true");
-        if(cacheEnabled)
-            for (CachedDocumentSchema<?> s : cache)
-                if (s.equals(clazz, tableNameModifier, fieldNameModifier))
-                    return (DocumentSchema<T>) s.getSchema();
+        if (!cacheEnabled) return parse(clazz, tableNameModifier, fieldNameModifier);
+        CacheKey key = new CacheKey(clazz, tableNameModifier, fieldNameModifier);
+        DocumentSchema<?> cached = registry.get(key);
+        if (cached == null) {
+            cached = parse(clazz, tableNameModifier, fieldNameModifier);
+            DocumentSchema<?> existing = registry.putIfAbsent(key, cached);
+            if (existing != null) cached = existing;
+        }
+        return (DocumentSchema<T>) cached;
+    }
+
+    private static <T> DocumentSchema<T> parse(Class<T> clazz, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier) {
+        GeneratedSchema<T> generated = findGenerated(clazz);
+        if (generated != null) return fromGenerated(generated, tableNameModifier, fieldNameModifier);
 
         Document docInfo = clazz.getAnnotation(Document.class);
         if (docInfo == null) throw new InvalidDocumentClassException("Class " + clazz.getName() + " does not have @Document annotation");
@@ -118,13 +140,46 @@ public class DocumentParser {
                 if (field.getGetter() == null || field.getSetter() == null) throw new InvalidDocumentClassException(
                         (field.getGetter() == null ? "Setter" : "Getter") + " at field " + field.getName() + " does not have matching " + (field.getSetter() == null ? "setter" : "getter")
                 );
+                field.accessor = FieldAccessors.forMethods(field.getGetter(), field.getSetter());
             }
         }
 
-        DocumentSchema<T> schema = new DocumentSchema<>(clazz, tableName, fields, tableNameModifier, fieldNameModifier);
-        if (cacheEnabled)
-            cache.add(new CachedDocumentSchema<>(clazz, tableNameModifier, fieldNameModifier, schema));
-        return schema;
+        return new DocumentSchema<>(clazz, tableName, fields, tableNameModifier, fieldNameModifier);
+    }
+
+    /**
+     * Loads schema, generated for document class by annotation processor, if it is present.
+     * Generated class is placed in the same package and named after document class with {@link #GENERATED_SCHEMA_SUFFIX}.
+     */
+    private static <T> GeneratedSchema<T> findGenerated(Class<T> clazz) {
+        String name = clazz.getName();
+        int packageEnd = name.lastIndexOf('.') + 1;
+        String generatedName = name.substring(0, packageEnd) + name.substring(packageEnd).replace('$', '_') + GENERATED_SCHEMA_SUFFIX;
+        Class<?> generatedClass;
+        try {
+            generatedClass = Class.forName(generatedName, true, clazz.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        try {
+            GeneratedSchema<?> generated = (GeneratedSchema<?>) generatedClass.getConstructor().newInstance();
+            return generated.getType() == clazz ? (GeneratedSchema<T>) generated : null;
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new InvalidDocumentClassException("Can't load generated schema " + generatedName, e);
+        }
+    }
+
+    private static <T> DocumentSchema<T> fromGenerated(GeneratedSchema<T> generated, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier) {
+        Class<T> clazz = generated.getType();
+        String tableName = tableNameModifier == null ? generated.getTable() : tableNameModifier.method(generated.getTable(), clazz);
+        List<DocumentField> fields = new ArrayList<>();
+        for (GeneratedField field : generated.getFields()) {
+            String fieldName = fieldNameModifier == null ? field.getName() : fieldNameModifier.method(field.getName(), clazz);
+            if (findField(fields, fieldName) != null) throw new InvalidDocumentClassException("Field " + fieldName + " specified twice");
+            SerializerMiddleware serializer = new SerializerMiddleware(field.getType(), field.getStorageType(), field.getSerializer(), field.getFixedLength());
+            fields.add(new GeneratedDocumentField(fieldName, serializer, field.isPrimaryKey(), field.isAutoIncrement(), field.getUniqueKey(), field.getAccessor()));
+        }
+        return new DocumentSchema<>(clazz, tableName, fields, tableNameModifier, fieldNameModifier, generated.getFactory());
     }
 
     private static DocumentField findField(List<DocumentField> list, String name) {
@@ -139,6 +194,10 @@ public class DocumentParser {
         @Getter @Setter private boolean isAutoIncrement;
         @Getter @Setter private String uniqueKey;
         @Getter @Setter private SerializerMiddleware serializer;
+        /**
+         * Accessor, created once during document class parsing and used for all reads and writes of this field.
+         */
+        @Getter protected FieldAccessor accessor;
 
         protected DocumentField(String name, SerializerMiddleware serializer, boolean isPrimaryKey, boolean isAutoIncrement, String uniqueKey) {
             this.name = name;
@@ -148,8 +207,13 @@ public class DocumentParser {
             this.uniqueKey = uniqueKey;
         }
 
-        public abstract Object read(Object instance) throws IllegalAccessException, InvocationTargetException;
-        public abstract void write(Object instance, Object value) throws IllegalAccessException, InvocationTargetException;
+        public Object read(Object instance) throws IllegalAccessException, InvocationTargetException {
+            return accessor.get(instance);
+        }
+
+        public void write(Object instance, Object value) throws IllegalAccessException, InvocationTargetException {
+            accessor.set(instance, value);
+        }
     }
 
     public static class StandardDocumentField extends DocumentField {
@@ -158,16 +222,7 @@ public class DocumentParser {
         private StandardDocumentField(String name, SerializerMiddleware serializer, boolean isPrimaryKey, boolean isAutoIncrement, String uniqueKey, Field reflectField) {
             super(name, serializer, isPrimaryKey, isAutoIncrement, uniqueKey);
             this.reflectField = reflectField;
-        }
-
-        @Override
-        public Object read(Object instance) throws IllegalAccessException {
-            return reflectField.get(instance);
-        }
-
-        @Override
-        public void write(Object instance, Object value) throws IllegalAccessException {
-            reflectField.set(instance, value);
+            this.accessor = FieldAccessors.forField(reflectField);
         }
     }
 
@@ -178,15 +233,12 @@ public class DocumentParser {
         private ComputedDocumentField(String name, SerializerMiddleware serializer, boolean isPrimaryKey, boolean isAutoIncrement, String uniqueKey) {
             super(name, serializer, isPrimaryKey, isAutoIncrement, uniqueKey);
         }
+    }
 
-        @Override
-        public Object read(Object instance) throws IllegalAccessException, InvocationTargetException {
-            return getter.invoke(instance);
-        }
-
-        @Override
-        public void write(Object instance, Object value) throws IllegalAccessException, InvocationTargetException {
-            setter.invoke(instance, value);
+    public static class GeneratedDocumentField extends DocumentField {
+        private GeneratedDocumentField(String name, SerializerMiddleware serializer, boolean isPrimaryKey, boolean isAutoIncrement, String uniqueKey, FieldAccessor accessor) {
+            super(name, serializer, isPrimaryKey, isAutoIncrement, uniqueKey);
+            this.accessor = accessor;
         }
     }
 
@@ -196,14 +248,21 @@ public class DocumentParser {
     }
 
     @AllArgsConstructor
-    private static class CachedDocumentSchema<T> {
+    private static class CacheKey {
         private final Class<?> type;
         private final DocumentParser.NameModifier tableNameModifier;
         private final DocumentParser.NameModifier fieldNameModifier;
-        @Getter private final DocumentSchema<T> schema;
 
-        public boolean equals(Class<?> type, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier) {
-            return this.type == type && this.tableNameModifier == tableNameModifier && this.fieldNameModifier == fieldNameModifier;
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CacheKey)) return false;
+            CacheKey other = (CacheKey) o;
+            return this.type == other.type && this.tableNameModifier == other.tableNameModifier && this.fieldNameModifier == other.fieldNameModifier;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * type.hashCode() + System.identityHashCode(tableNameModifier)) + System.identityHashCode(fieldNameModifier);
         }
     }
 }
@@ -1,14 +1,22 @@
 package com.rikonardo.kiorm.serialization;
 
-import com.rikonardo.kiorm.exceptions.InvalidDocumentClassException;
+import com.rikonardo.kiorm.annotations.TrackChanges;
+import com.rikonardo.kiorm.queries.api.Param;
 import lombok.Getter;
 
 import java.lang.reflect.InvocationTargetException;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class DocumentSchema<T> {
     @Getter private final Class<T> type;
@@ -17,27 +25,339 @@ public class DocumentSchema<T> {
     @Getter private final DocumentParser.NameModifier tableNameModifier;
     @Getter private final DocumentParser.NameModifier fieldNameModifier;
 
+    /**
+     * Precompiled statements for instance writes. Update and delete plans are null when document has no primary key.
+     */
+    @Getter private final WritePlan<T> insertPlan;
+    @Getter private final WritePlan<T> updatePlan;
+    @Getter private final WritePlan<T> deletePlan;
+    /**
+     * Plan of one upsert row. Unlike insert plan, it binds auto-increment fields too, so existing rows conflict by primary key.
+     * MySQL generates new key when bound value is 0 or NULL.
+     */
+    @Getter private final WritePlan<T> upsertPlan;
+    /**
+     * Fragments for assembling bulk statements. Key plan binds primary key fields and its SQL is the list of key columns,
+     * key condition is {@code `a` = ? AND `b` = ?} for the same fields. Every column plan binds one non-auto-increment field
+     * and its SQL is the column name. Key plan and condition are null when document has no primary key.
+     */
+    @Getter private final WritePlan<T> keyPlan;
+    @Getter private final String keyCondition;
+    @Getter private final List<WritePlan<T>> columnPlans;
+    private final DocumentParser.DocumentField generatedKeyField;
+    private final String insertPrefix;
+    private final String insertRow;
+    private final String upsertPrefix;
+    private final String upsertRow;
+    private final Supplier<T> factory;
+    private volatile Supplier<T> restoreFactory;
+    /**
+     * Snapshots of loaded documents, if document class has {@link TrackChanges} annotation, otherwise null.
+     */
+    private final ChangeTracker changeTracker;
+
+    private final Map<String, RowMapper<T>> rowMappers = new ConcurrentHashMap<>();
+
     public DocumentSchema(Class<T> type, String table, List<DocumentParser.DocumentField> fields, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier) {
+        this(type, table, fields, tableNameModifier, fieldNameModifier, null);
+    }
+
+    /**
+     * @param factory Factory of new document instances. If null, no-args constructor of document class is used.
+     */
+    public DocumentSchema(Class<T> type, String table, List<DocumentParser.DocumentField> fields, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier, Supplier<T> factory) {
         this.type = type;
+        this.factory = factory;
+        this.changeTracker = type.isAnnotationPresent(TrackChanges.class) ? new ChangeTracker() : null;
         this.table = table;
         this.fields = fields;
         this.tableNameModifier = tableNameModifier;
         this.fieldNameModifier = fieldNameModifier;
+
+        List<DocumentParser.DocumentField> values = new ArrayList<>();
+        List<DocumentParser.DocumentField> keys = new ArrayList<>();
+        DocumentParser.DocumentField generatedKeyField = null;
+        for (DocumentParser.DocumentField field : fields) {
+            if (!field.isAutoIncrement()) values.add(field);
+            if (field.isPrimaryKey()) keys.add(field);
+            if (field.isAutoIncrement() && generatedKeyField == null) generatedKeyField = field;
+        }
+        this.generatedKeyField = generatedKeyField != null ? generatedKeyField : (keys.isEmpty() ? null : keys.get(0));
+
+        StringBuilder columns = new StringBuilder();
+        StringBuilder placeholders = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        for (DocumentParser.DocumentField field : values) {
+            if (columns.length() > 0) {
+                columns.append(", ");
+                placeholders.append(", ");
+                assignments.append(", ");
+            }
+            columns.append('`').append(field.getName()).append('`');
+            placeholders.append('?');
+            assignments.append('`').append(field.getName()).append("` = ?");
+        }
+        StringBuilder conditions = new StringBuilder();
+        StringBuilder keyColumns = new StringBuilder();
+        for (DocumentParser.DocumentField field : keys) {
+            if (conditions.length() > 0) {
+                conditions.append(" AND ");
+                keyColumns.append(", ");
+            }
+            conditions.append('`').append(field.getName()).append("` = ?");
+            keyColumns.append('`').append(field.getName()).append('`');
+        }
+        List<WritePlan<T>> columnPlans = new ArrayList<>();
+        for (DocumentParser.DocumentField field : values)
+            columnPlans.add(new WritePlan<>("`" + field.getName() + "`", Collections.singletonList(field)));
+        this.columnPlans = Collections.unmodifiableList(columnPlans);
+
+        this.insertPrefix = "INSERT INTO `" + table + "` (" + columns + ") VALUES ";
+        this.insertRow = "(" + placeholders + ")";
+        this.insertPlan = new WritePlan<>(insertPrefix + insertRow + ";", values);
+        if (values.size() == fields.size()) {
+            this.upsertPrefix = insertPrefix;
+            this.upsertRow = insertRow;
+            this.upsertPlan = insertPlan;
+        } else {
+            StringBuilder allColumns = new StringBuilder();
+            StringBuilder allPlaceholders = new StringBuilder();
+            for (DocumentParser.DocumentField field : fields) {
+                if (allColumns.length() > 0) {
+                    allColumns.append(", ");
+                    allPlaceholders.append(", ");
+                }
+                allColumns.append('`').append(field.getName()).append('`');
+                allPlaceholders.append('?');
+            }
+            this.upsertPrefix = "INSERT INTO `" + table + "` (" + allColumns + ") VALUES ";
+            this.upsertRow = "(" + allPlaceholders + ")";
+            this.upsertPlan = new WritePlan<>(upsertPrefix + upsertRow + ";", fields);
+        }
+        if (keys.isEmpty()) {
+            this.updatePlan = null;
+            this.deletePlan = null;
+            this.keyPlan = null;
+            this.keyCondition = null;
+        } else {
+            this.keyPlan = new WritePlan<>(keyColumns.toString(), keys);
+            this.keyCondition = conditions.toString();
+            List<DocumentParser.DocumentField> updateFields = new ArrayList<>(values);
+            updateFields.addAll(keys);
+            this.updatePlan = new WritePlan<>("UPDATE `" + table + "` SET " + assignments + " WHERE " + conditions + ";", updateFields);
+            this.deletePlan = new WritePlan<>("DELETE FROM `" + table + "` WHERE " + conditions + ";", keys);
+        }
+    }
+
+    /**
+     * Builds multi-row insert statement. Every row is bound with {@link #getInsertPlan()} in sequence.
+     * @param rows Amount of inserted rows
+     * @return SQL query
+     */
+    public String insertSql(int rows) {
+        return values(insertPrefix, insertRow, rows).append(';').toString();
+    }
+
+    /**
+     * Builds multi-row {@code INSERT ... ON DUPLICATE KEY UPDATE} statement. Every row is bound with {@link #getUpsertPlan()} in sequence.
+     * Auto-increment key is assigned with {@code LAST_INSERT_ID()}, so generated keys contain ids of updated rows too.
+     * @param rows Amount of inserted rows
+     * @param overwrite Fields, overwritten when row already exists
+     * @return SQL query
+     */
+    public String upsertSql(int rows, List<DocumentParser.DocumentField> overwrite) {
+        StringBuilder query = values(upsertPrefix, upsertRow, rows).append(" ON DUPLICATE KEY UPDATE ");
+        boolean first = true;
+        for (DocumentParser.DocumentField field : overwrite) {
+            if (!first) query.append(", ");
+            query.append('`').append(field.getName()).append("` = VALUES(`").append(field.getName()).append("`)");
+            first = false;
+        }
+        if (generatedKeyField != null && generatedKeyField.isAutoIncrement()) {
+            if (!first) query.append(", ");
+            query.append('`').append(generatedKeyField.getName()).append("` = LAST_INSERT_ID(`").append(generatedKeyField.getName()).append("`)");
+        } else if (first) {
+            DocumentParser.DocumentField field = fields.get(0);
+            query.append('`').append(field.getName()).append("` = `").append(field.getName()).append('`');
+        }
+        return query.append(';').toString();
+    }
+
+    private static StringBuilder values(String prefix, String row, int rows) {
+        StringBuilder query = new StringBuilder(prefix.length() + rows * (row.length() + 2)).append(prefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) query.append(", ");
+            query.append(row);
+        }
+        return query;
+    }
+
+    /**
+     * Builds delete statement for many primary keys: {@code WHERE `id` IN (?, ...)}, or {@code WHERE (`a`, `b`) IN ((?, ?), ...)} for composite keys.
+     * Every row is bound with {@link #getKeyPlan()} in sequence.
+     * @param rows Amount of deleted keys
+     * @return SQL query
+     */
+    public String deleteSql(int rows) {
+        int keys = keyPlan.getParameterCount();
+        StringBuilder row = new StringBuilder(keys == 1 ? "?" : "(?");
+        for (int i = 1; i < keys; i++) row.append(", ?");
+        if (keys > 1) row.append(')');
+        StringBuilder query = new StringBuilder("DELETE FROM `").append(table).append("` WHERE ")
+                .append(keys == 1 ? keyPlan.getSql() : "(" + keyPlan.getSql() + ")").append(" IN (");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) query.append(", ");
+            query.append(row);
+        }
+        return query.append(");").toString();
     }
 
+    /**
+     * Maps current row of the result set. When mapping many rows, prefer {@link #rowMapper} to resolve mapping plan only once.
+     */
     public T fromResultSet(ResultSet rs) throws SQLException {
+        return rowMapper(rs).map(rs);
+    }
+
+    /**
+     * Returns mapping plan for the shape of this result set. Plans are built on first use and cached by column labels.
+     * @param rs Result set, which rows will be mapped
+     * @return Row mapper
+     */
+    public RowMapper<T> rowMapper(ResultSet rs) throws SQLException {
+        return rowMapper(rs, false);
+    }
+
+    /**
+     * Returns mapping plan for the shape of this result set. Plans are built on first use and cached by column labels.
+     * @param rs Result set, which rows will be mapped
+     * @param partial If true, fields without matching columns are not mapped and keep values, assigned by document constructor.
+     *                Otherwise, missing column is an error.
+     * @return Row mapper
+     */
+    public RowMapper<T> rowMapper(ResultSet rs, boolean partial) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        StringBuilder key = new StringBuilder(partial ? "partial\0" : "");
+        for (int i = 1; i <= metaData.getColumnCount(); i++)
+            key.append(metaData.getColumnLabel(i)).append('\0');
+        String shape = key.toString();
+        RowMapper<T> mapper = rowMappers.get(shape);
+        if (mapper == null) {
+            mapper = new RowMapper<>(type, factory, fields, metaData, partial, changeTracker == null || partial ? null : this::track);
+            rowMappers.putIfAbsent(shape, mapper);
+        }
+        return mapper;
+    }
+
+    /**
+     * Serializes all fields of document into their storage values. Binary values are copied. Snapshot can be turned into new instance with {@link #restore}.
+     * @param instance Document instance
+     * @return Storage values in order of {@link #getFields()}
+     */
+    public Object[] snapshot(T instance) {
         try {
-            T instance = type.getConstructor().newInstance();
-            for (DocumentParser.DocumentField field : fields)
-                field.write(instance, field.getSerializer().deserialize(field.getSerializer().getStorageType().read(rs, field.getName())));
+            Object[] snapshot = new Object[fields.size()];
+            for (int i = 0; i < snapshot.length; i++) {
+                DocumentParser.DocumentField field = fields.get(i);
+                Object value = field.getSerializer().serialize(field.read(instance));
+                snapshot[i] = value instanceof byte[] ? ((byte[]) value).clone() : value;
+            }
+            return snapshot;
+        } catch (InvocationTargetException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Creates new document instance from snapshot. Binary values are copied, so snapshot is never shared with document instances.
+     * If changes of document class are tracked, new instance is tracked with this snapshot.
+     * @param snapshot Storage values, created by {@link #snapshot}
+     * @return New document instance
+     */
+    public T restore(Object[] snapshot) {
+        Supplier<T> factory = this.restoreFactory;
+        if (factory == null)
+            this.restoreFactory = factory = this.factory != null ? this.factory : RowMapper.constructor(type);
+        try {
+            T instance = factory.get();
+            for (int i = 0; i < snapshot.length; i++) {
+                DocumentParser.DocumentField field = fields.get(i);
+                Object value = snapshot[i] instanceof byte[] ? ((byte[]) snapshot[i]).clone() : snapshot[i];
+                field.write(instance, field.getSerializer().deserialize(value));
+            }
+            if (changeTracker != null) changeTracker.put(instance, snapshot);
             return instance;
-        } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
+        } catch (InvocationTargetException | IllegalAccessException e) {
             throw new RuntimeException(e);
-        } catch (NoSuchMethodException e) {
-            throw new InvalidDocumentClassException("Document class must have no-args constructor in order to be used in select operations");
         }
     }
 
+    /**
+     * @return true if document class has {@link TrackChanges} annotation
+     */
+    public boolean isTrackingChanges() {
+        return changeTracker != null;
+    }
+
+    /**
+     * Remembers current state of document as state, stored in the database. Does nothing if changes of document class are not tracked.
+     * @param instance Document instance
+     */
+    public void track(T instance) {
+        if (changeTracker != null) changeTracker.put(instance, snapshot(instance));
+    }
+
+    /**
+     * Remembers snapshot as state of document, stored in the database. Does nothing if changes of document class are not tracked.
+     * @param instance Document instance
+     * @param snapshot Snapshot of document, created by {@link #snapshot}
+     */
+    public void track(T instance, Object[] snapshot) {
+        if (changeTracker != null) changeTracker.put(instance, snapshot);
+    }
+
+    /**
+     * Forgets stored state of document, so its next update writes all fields.
+     * @param instance Document instance
+     */
+    public void untrack(T instance) {
+        if (changeTracker != null) changeTracker.remove(instance);
+    }
+
+    /**
+     * Compares current snapshot of document with snapshot, taken when it was loaded or written last time.
+     * Primary key and auto-increment fields are not compared.
+     * @param instance Document instance
+     * @param current Current snapshot of document
+     * @return Indexes of changed fields in {@link #getFields()}, or null if document is not tracked
+     */
+    public int[] changedFields(T instance, Object[] current) {
+        Object[] stored = changeTracker == null ? null : changeTracker.get(instance);
+        if (stored == null) return null;
+        int[] changed = new int[fields.size()];
+        int count = 0;
+        for (int i = 0; i < changed.length; i++) {
+            DocumentParser.DocumentField field = fields.get(i);
+            if (field.isPrimaryKey() || field.isAutoIncrement()) continue;
+            if (!Objects.deepEquals(stored[i], current[i])) changed[count++] = i;
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * Builds update statement, that writes only specified fields. Changed fields are bound first, then primary key with {@link #getKeyPlan()}.
+     * @param changed Indexes of fields in {@link #getFields()}
+     * @return SQL query
+     */
+    public String updateSql(int[] changed) {
+        StringBuilder query = new StringBuilder("UPDATE `").append(table).append("` SET ");
+        for (int i = 0; i < changed.length; i++) {
+            if (i > 0) query.append(", ");
+            query.append('`').append(fields.get(changed[i]).getName()).append("` = ?");
+        }
+        return query.append(" WHERE ").append(keyCondition).append(';').toString();
+    }
+
     public Map<String, Object> mapWithoutId(T instance) {
         try {
             Map<String, Object> map = new HashMap<>();
@@ -51,13 +371,9 @@ public class DocumentSchema<T> {
     }
 
     public void fillKey(ResultSet rs, T instance) throws SQLException {
+        if (generatedKeyField == null) return;
         try {
-            for (DocumentParser.DocumentField field : fields) {
-                if (field.isPrimaryKey()) {
-                    field.write(instance, field.getSerializer().deserialize(field.getSerializer().getStorageType().read(rs, 1)));
-                    return;
-                }
-            }
+            generatedKeyField.write(instance, generatedKeyField.getSerializer().deserialize(generatedKeyField.getSerializer().getStorageType().read(rs, 1)));
         } catch (InvocationTargetException | IllegalAccessException e) {
             throw new RuntimeException(e);
         } catch (SQLException e) {
@@ -92,7 +408,7 @@ public class DocumentSchema<T> {
         String fieldName = toStorageFieldName(name);
         for (DocumentParser.DocumentField field : fields)
             if (field.getName().equals(fieldName))
-                return field.getSerializer().serialize(value);
+                return value instanceof Param ? ((Param) value).withSerializer(field.getSerializer()) : field.getSerializer().serialize(value);
         return value;
     }
 }
@@ -0,0 +1,63 @@
+package com.rikonardo.kiorm.serialization;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Reads and writes value of document field.
+ * Primitive methods allow to move values without boxing, but can only be used when {@link #getType()} is the matching primitive type.
+ */
+public interface FieldAccessor {
+    Class<?> getType();
+
+    Object get(Object instance) throws InvocationTargetException;
+    void set(Object instance, Object value) throws InvocationTargetException;
+
+    default boolean getBoolean(Object instance) throws InvocationTargetException {
+        return (boolean) get(instance);
+    }
+    default void setBoolean(Object instance, boolean value) throws InvocationTargetException {
+        set(instance, value);
+    }
+
+    default byte getByte(Object instance) throws InvocationTargetException {
+        return (byte) get(instance);
+    }
+    default void setByte(Object instance, byte value) throws InvocationTargetException {
+        set(instance, value);
+    }
+
+    default short getShort(Object instance) throws InvocationTargetException {
+        return (short) get(instance);
+    }
+    default void setShort(Object instance, short value) throws InvocationTargetException {
+        set(instance, value);
+    }
+
+    default int getInt(Object instance) throws InvocationTargetException {
+        return (int) get(instance);
+    }
+    default void setInt(Object instance, int value) throws InvocationTargetException {
+        set(instance, value);
+    }
+
+    default long getLong(Object instance) throws InvocationTargetException {
+        return (long) get(instance);
+    }
+    default void setLong(Object instance, long value) throws InvocationTargetException {
+        set(instance, value);
+    }
+
+    default float getFloat(Object instance) throws InvocationTargetException {
+        return (float) get(instance);
+    }
+    default void setFloat(Object instance, float value) throws InvocationTargetException {
+        set(instance, value);
+    }
+
+    default double getDouble(Object instance) throws InvocationTargetException {
+        return (double) get(instance);
+    }
+    default void setDouble(Object instance, double value) throws InvocationTargetException {
+        set(instance, value);
+    }
+}
@@ -0,0 +1,347 @@
+package com.rikonardo.kiorm.serialization;
+
+import com.rikonardo.kiorm.exceptions.InvalidDocumentClassException;
+import lombok.experimental.UtilityClass;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Creates field accessors, backed by method handles.
+ * If method handles can't be created (for example, when access is restricted by security manager or module system),
+ * accessors fall back to plain reflection.
+ */
+@UtilityClass
+public class FieldAccessors {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /**
+     * @param field Accessible class field
+     * @return Accessor, that reads and writes field directly
+     */
+    public static FieldAccessor forField(Field field) {
+        try {
+            return new MethodHandleAccessor(field.getType(), LOOKUP.unreflectGetter(field), LOOKUP.unreflectSetter(field));
+        } catch (IllegalAccessException | RuntimeException e) {
+            return new ReflectiveFieldAccessor(field);
+        }
+    }
+
+    /**
+     * @param getter Accessible getter method without params
+     * @param setter Accessible setter method with one param of the same type
+     * @return Accessor, that invokes getter and setter
+     */
+    public static FieldAccessor forMethods(Method getter, Method setter) {
+        try {
+            return new MethodHandleAccessor(getter.getReturnType(), LOOKUP.unreflect(getter), LOOKUP.unreflect(setter));
+        } catch (IllegalAccessException | RuntimeException e) {
+            return new ReflectiveMethodAccessor(getter, setter);
+        }
+    }
+
+    /**
+     * Looks up declared field by name. Used by generated schemas for fields, which can't be accessed directly.
+     * @param type Class, that declares field
+     * @param name Field name
+     * @return Accessor, that reads and writes field directly
+     */
+    public static FieldAccessor forField(Class<?> type, String name) {
+        try {
+            Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+            return forField(field);
+        } catch (NoSuchFieldException | RuntimeException e) {
+            throw new InvalidDocumentClassException("Can't access field " + name + " of document class " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Looks up declared getter and setter by name. Used by generated schemas for methods, which can't be invoked directly.
+     * @param type Class, that declares methods
+     * @param getter Getter name
+     * @param setter Setter name
+     * @param valueType Getter return type and setter param type
+     * @return Accessor, that invokes getter and setter
+     */
+    public static FieldAccessor forMethods(Class<?> type, String getter, String setter, Class<?> valueType) {
+        try {
+            Method getterMethod = type.getDeclaredMethod(getter);
+            Method setterMethod = type.getDeclaredMethod(setter, valueType);
+            getterMethod.setAccessible(true);
+            setterMethod.setAccessible(true);
+            return forMethods(getterMethod, setterMethod);
+        } catch (NoSuchMethodException | RuntimeException e) {
+            throw new InvalidDocumentClassException("Can't access methods " + getter + " and " + setter + " of document class " + type.getName(), e);
+        }
+    }
+
+    private static class MethodHandleAccessor implements FieldAccessor {
+        private final Class<?> type;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final MethodHandle primitiveGetter;
+        private final MethodHandle primitiveSetter;
+
+        private MethodHandleAccessor(Class<?> type, MethodHandle getter, MethodHandle setter) {
+            this.type = type;
+            this.getter = getter.asType(MethodType.methodType(Object.class, Object.class));
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            if (type.isPrimitive()) {
+                this.primitiveGetter = getter.asType(MethodType.methodType(type, Object.class));
+                this.primitiveSetter = setter.asType(MethodType.methodType(void.class, Object.class, type));
+            } else {
+                this.primitiveGetter = this.primitiveSetter = null;
+            }
+        }
+
+        @Override
+        public Class<?> getType() {
+            return type;
+        }
+
+        @Override
+        public Object get(Object instance) throws InvocationTargetException {
+            try {
+                return (Object) getter.invokeExact(instance);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public void set(Object instance, Object value) throws InvocationTargetException {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public boolean getBoolean(Object instance) throws InvocationTargetException {
+            try {
+                return (boolean) primitiveGetter.invokeExact(instance);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public void setBoolean(Object instance, boolean value) throws InvocationTargetException {
+            try {
+                primitiveSetter.invokeExact(instance, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public byte getByte(Object instance) throws InvocationTargetException {
+            try {
+                return (byte) primitiveGetter.invokeExact(instance);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public void setByte(Object instance, byte value) throws InvocationTargetException {
+            try {
+                primitiveSetter.invokeExact(instance, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public short getShort(Object instance) throws InvocationTargetException {
+            try {
+                return (short) primitiveGetter.invokeExact(instance);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public void setShort(Object instance, short value) throws InvocationTargetException {
+            try {
+                primitiveSetter.invokeExact(instance, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public int getInt(Object instance) throws InvocationTargetException {
+            try {
+                return (int) primitiveGetter.invokeExact(instance);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public void setInt(Object instance, int value) throws InvocationTargetException {
+            try {
+                primitiveSetter.invokeExact(instance, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public long getLong(Object instance) throws InvocationTargetException {
+            try {
+                return (long) primitiveGetter.invokeExact(instance);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public void setLong(Object instance, long value) throws InvocationTargetException {
+            try {
+                primitiveSetter.invokeExact(instance, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public float getFloat(Object instance) throws InvocationTargetException {
+            try {
+                return (float) primitiveGetter.invokeExact(instance);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public void setFloat(Object instance, float value) throws InvocationTargetException {
+            try {
+                primitiveSetter.invokeExact(instance, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public double getDouble(Object instance) throws InvocationTargetException {
+            try {
+                return (double) primitiveGetter.invokeExact(instance);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public void setDouble(Object instance, double value) throws InvocationTargetException {
+            try {
+                primitiveSetter.invokeExact(instance, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    }
+
+    private static class ReflectiveFieldAccessor implements FieldAccessor {
+        private final Field field;
+
+        private ReflectiveFieldAccessor(Field field) {
+            this.field = field;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return field.getType();
+        }
+
+        @Override
+        public Object get(Object instance) throws InvocationTargetException {
+            try {
+                return field.get(instance);
+            } catch (IllegalAccessException e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public void set(Object instance, Object value) throws InvocationTargetException {
+            try {
+                field.set(instance, value);
+            } catch (IllegalAccessException e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    }
+
+    private static class ReflectiveMethodAccessor implements FieldAccessor {
+        private final Method getter;
+        private final Method setter;
+
+        private ReflectiveMethodAccessor(Method getter, Method setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return getter.getReturnType();
+        }
+
+        @Override
+        public Object get(Object instance) throws InvocationTargetException {
+            try {
+                return getter.invoke(instance);
+            } catch (IllegalAccessException e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public void set(Object instance, Object value) throws InvocationTargetException {
+            try {
+                setter.invoke(instance, value);
+            } catch (IllegalAccessException e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    }
+}
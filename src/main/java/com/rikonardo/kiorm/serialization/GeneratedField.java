@@ -0,0 +1,27 @@
+package com.rikonardo.kiorm.serialization;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Field of {@link GeneratedSchema}. All types are resolved and validated by annotation processor.
+ */
+@Getter
+@AllArgsConstructor
+public class GeneratedField {
+    /**
+     * Field name without applied name modifier
+     */
+    private final String name;
+    private final Class<?> type;
+    private final Class<?> storageType;
+    private final FieldSerializer<?, ?> serializer;
+    /**
+     * Length from {@link com.rikonardo.kiorm.annotations.Fixed} annotation, or -1 if field type is not fixed
+     */
+    private final int fixedLength;
+    private final boolean primaryKey;
+    private final boolean autoIncrement;
+    private final String uniqueKey;
+    private final FieldAccessor accessor;
+}
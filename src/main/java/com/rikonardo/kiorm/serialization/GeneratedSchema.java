@@ -0,0 +1,24 @@
+package com.rikonardo.kiorm.serialization;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Schema descriptor of document class, generated at compile time by KiORM annotation processor.
+ * When descriptor is present, {@link DocumentParser} builds schema from it instead of inspecting document class with reflection.
+ */
+public interface GeneratedSchema<T> {
+    Class<T> getType();
+
+    /**
+     * @return Table name without applied name modifier
+     */
+    String getTable();
+
+    List<GeneratedField> getFields();
+
+    /**
+     * @return Factory of new document instances, or null if document class has no no-args constructor, accessible from its package
+     */
+    Supplier<T> getFactory();
+}
@@ -0,0 +1,114 @@
+package com.rikonardo.kiorm.serialization;
+
+import com.rikonardo.kiorm.exceptions.InvalidDocumentClassException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Mapping plan for one document schema and one result set shape.
+ * Column indexes, constructor and typed readers are resolved once, so every row is mapped with index-based getters only.
+ */
+public class RowMapper<T> {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Supplier<T> factory;
+    private final ColumnReader[] readers;
+    private final Consumer<T> listener;
+
+    /**
+     * @param listener Callback, that receives every mapped document, or null
+     */
+    RowMapper(Class<T> type, Supplier<T> factory, List<DocumentParser.DocumentField> fields, ResultSetMetaData metaData, boolean partial, Consumer<T> listener) throws SQLException {
+        this.factory = factory != null ? factory : constructor(type);
+        this.listener = listener;
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = metaData.getColumnCount(); i >= 1; i--)
+            columns.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+
+        List<ColumnReader> readers = new ArrayList<>(fields.size());
+        for (DocumentParser.DocumentField field : fields) {
+            Integer index = columns.get(field.getName().toLowerCase(Locale.ROOT));
+            if (index == null) {
+                if (partial) continue;
+                throw new SQLException("Column '" + field.getName() + "' not found.");
+            }
+            readers.add(reader(field, index));
+        }
+        this.readers = readers.toArray(new ColumnReader[0]);
+    }
+
+    static <T> Supplier<T> constructor(Class<T> type) {
+        Constructor<?> constructor;
+        try {
+            constructor = type.getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new InvalidDocumentClassException("Document class must have no-args constructor in order to be used in select operations");
+        }
+        try {
+            constructor.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    return type.cast((Object) handle.invokeExact());
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new RuntimeException(e);
+                }
+            };
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new InvalidDocumentClassException("Can't access no-args constructor of document class " + type.getName(), e);
+        }
+    }
+
+    public T map(ResultSet rs) throws SQLException {
+        try {
+            T instance = factory.get();
+            for (ColumnReader reader : readers)
+                reader.read(rs, instance);
+            if (listener != null) listener.accept(instance);
+            return instance;
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ColumnReader reader(DocumentParser.DocumentField field, int index) {
+        FieldAccessor accessor = field.getAccessor();
+        SerializerMiddleware serializer = field.getSerializer();
+        SupportedTypes.SupportedType storageType = serializer.getStorageType();
+        if (!serializer.hasSerializer() && accessor.getType().isPrimitive()) {
+            Class<?> primitive = accessor.getType();
+            if (primitive == int.class) return (rs, instance) -> accessor.setInt(instance, rs.getInt(index));
+            if (primitive == long.class) return (rs, instance) -> accessor.setLong(instance, rs.getLong(index));
+            if (primitive == double.class) return (rs, instance) -> accessor.setDouble(instance, rs.getDouble(index));
+            if (primitive == float.class) return (rs, instance) -> accessor.setFloat(instance, rs.getFloat(index));
+            if (primitive == boolean.class) return (rs, instance) -> accessor.setBoolean(instance, rs.getBoolean(index));
+            if (primitive == short.class) return (rs, instance) -> accessor.setShort(instance, rs.getShort(index));
+            if (primitive == byte.class) return (rs, instance) -> accessor.setByte(instance, rs.getByte(index));
+        }
+        if (!serializer.hasSerializer())
+            return (rs, instance) -> accessor.set(instance, storageType.read(rs, index));
+        return (rs, instance) -> accessor.set(instance, serializer.deserialize(storageType.read(rs, index)));
+    }
+
+    @FunctionalInterface
+    private interface ColumnReader {
+        void read(ResultSet rs, Object instance) throws SQLException, InvocationTargetException;
+    }
+}
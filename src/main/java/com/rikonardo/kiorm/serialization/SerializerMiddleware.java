@@ -11,9 +11,8 @@ public class SerializerMiddleware {
     private final Class<?> realType;
     private final Class<?> storageType;
     private final SupportedTypes.SupportedType supportedStorageType;
-    private final Object serializerInstance;
+    private final FieldSerializer<Object, Object> serializerInstance;
     private final Class<? extends FieldSerializer<?, ?>> serializerClass;
-    private final Method deserialize, serialize;
 
     public SerializerMiddleware(Class<?> realType, Serializer serializer, Fixed fixed) {
         this(realType, serializer == null ? null : serializer.value(), fixed);
@@ -31,11 +30,10 @@ public class SerializerMiddleware {
         if (serializer == null) {
             this.storageType = this.realType;
             this.serializerInstance = null;
-            this.deserialize = this.serialize = null;
         }
         else {
             try {
-                serializerInstance = serializer.getConstructor().newInstance();
+                serializerInstance = (FieldSerializer<Object, Object>) serializer.getConstructor().newInstance();
             } catch (InvocationTargetException | NoSuchMethodException | IllegalAccessException | InstantiationException e) {
                 throw new InvalidDocumentClassException("Can't initialize serializer " + serializer.getName() + ", it must have no-args constructor");
             }
@@ -73,13 +71,24 @@ public class SerializerMiddleware {
             }
             if (deserialize == null)
                 throw new InvalidDocumentClassException("Serializer " + serializer.getName() + " is not compatible with type " + realType.getName());
-            this.deserialize = deserialize;
-            this.serialize = serialize;
         }
         this.supportedStorageType = SupportedTypes.getFieldType(this.storageType, fixed);
         if (this.supportedStorageType == null) throw new InvalidDocumentClassException("Field type " + this.storageType.getName() + " is not supported");
     }
 
+    /**
+     * Creates middleware from types, resolved at compile time by annotation processor, without inspecting serializer class.
+     * @param fixedLength Length of fixed storage type, or -1 if storage type is not fixed
+     */
+    public SerializerMiddleware(Class<?> realType, Class<?> storageType, FieldSerializer<?, ?> serializer, int fixedLength) {
+        this.realType = realType;
+        this.storageType = storageType;
+        this.serializerInstance = (FieldSerializer<Object, Object>) serializer;
+        this.serializerClass = serializer == null ? null : (Class<? extends FieldSerializer<?, ?>>) serializer.getClass();
+        this.supportedStorageType = SupportedTypes.getFieldType(storageType, fixedLength);
+        if (this.supportedStorageType == null) throw new InvalidDocumentClassException("Field type " + storageType.getName() + " is not supported");
+    }
+
     public boolean hasSerializer() {
         return this.serializerInstance != null;
     }
@@ -103,8 +112,8 @@ public class SerializerMiddleware {
     public Object serialize(Object value) {
         if (this.serializerInstance == null) return value;
         try {
-            return this.serialize.invoke(this.serializerInstance, value);
-        } catch (InvocationTargetException | IllegalAccessException | IllegalArgumentException e) {
+            return this.serializerInstance.serialize(value);
+        } catch (RuntimeException e) {
             throw new InvalidDocumentClassException("Failed to invoke serialization method in serializer " + this.serializerInstance.getClass().getName(), e);
         }
     }
@@ -112,8 +121,8 @@ public class SerializerMiddleware {
     public Object deserialize(Object value) {
         if (this.serializerInstance == null) return value;
         try {
-            return this.deserialize.invoke(this.serializerInstance, value);
-        } catch (InvocationTargetException | IllegalAccessException | IllegalArgumentException e) {
+            return this.serializerInstance.deserialize(value);
+        } catch (RuntimeException e) {
             throw new InvalidDocumentClassException("Failed to invoke deserialization method in serializer " + this.serializerInstance.getClass().getName(), e);
         }
     }
@@ -1,9 +1,11 @@
 package com.rikonardo.kiorm.serialization;
 
 import com.rikonardo.kiorm.annotations.Fixed;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 import javax.sql.rowset.serial.SerialBlob;
+import java.lang.annotation.Annotation;
 import java.sql.Blob;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -12,49 +14,49 @@ import java.sql.SQLException;
 public class SupportedTypes {
     public static class Registry {
         public static final SupportedType STRING = new SupportedType(false, String.class, "TEXT", "STRING",
-                (s, i) -> (i instanceof String ? s.getString((String) i) : s.getString((int) i)),
+                (s, i) -> s.getString(i),
                 (s, i, v) -> s.setString(i, (String) v)
         );
         public static final SupportedType BOOLEAN = new SupportedType(false, Boolean.class, boolean.class, "BOOLEAN", "BOOLEAN",
-                (s, i) -> (i instanceof String ? s.getBoolean((String) i) : s.getBoolean((int) i)),
+                (s, i) -> s.getBoolean(i),
                 (s, i, v) -> s.setBoolean(i, (boolean) v)
         );
         public static final SupportedType BYTE = new SupportedType(false, Byte.class, byte.class, "TINYINT", "BYTE",
-                (s, i) -> (i instanceof String ? s.getByte((String) i) : s.getByte((int) i)),
+                (s, i) -> s.getByte(i),
                 (s, i, v) -> s.setByte(i, (byte) v)
         );
         public static final SupportedType SHORT = new SupportedType(false, Short.class, short.class, "SMALLINT", "SHORT",
-                (s, i) -> (i instanceof String ? s.getShort((String) i) : s.getShort((int) i)),
+                (s, i) -> s.getShort(i),
                 (s, i, v) -> s.setShort(i, (short) v)
         );
         public static final SupportedType INT = new SupportedType(false, Integer.class, int.class, "INT", "INT",
-                (s, i) -> (i instanceof String ? s.getInt((String) i) : s.getInt((int) i)),
+                (s, i) -> s.getInt(i),
                 (s, i, v) -> s.setInt(i, (int) v)
         );
         public static final SupportedType LONG = new SupportedType(false, Long.class, long.class, "BIGINT", "LONG",
-                (s, i) -> (i instanceof String ? s.getLong((String) i) : s.getLong((int) i)),
+                (s, i) -> s.getLong(i),
                 (s, i, v) -> s.setLong(i, (long) v)
         );
         public static final SupportedType FLOAT = new SupportedType(false, Float.class, float.class, "FLOAT", "FLOAT",
-                (s, i) -> (i instanceof String ? s.getFloat((String) i) : s.getFloat((int) i)),
+                (s, i) -> s.getFloat(i),
                 (s, i, v) -> s.setFloat(i, (float) v)
         );
         public static final SupportedType DOUBLE = new SupportedType(false, Double.class, double.class, "DOUBLE", "DOUBLE",
-                (s, i) -> (i instanceof String ? s.getDouble((String) i) : s.getDouble((int) i)),
+                (s, i) -> s.getDouble(i),
                 (s, i, v) -> s.setDouble(i, (double) v)
         );
         public static final SupportedType BINARY = new SupportedType(false, byte[].class, "BLOB", "BINARY",
-                (s, i) -> (i instanceof String ? s.getBytes((String) i) : s.getBytes((int) i)),
+                (s, i) -> s.getBytes(i),
                 (s, i, v) -> s.setBytes(i, (byte[]) v)
         );
 
         public static class Fixed {
             public static final SupportedType BINARY = new SupportedType(true, byte[].class, "BINARY", "FIXED_BINARY",
-                    (s, i) -> (i instanceof String ? s.getBytes((String) i) : s.getBytes((int) i)),
+                    (s, i) -> s.getBytes(i),
                     (s, i, v) -> s.setBytes(i, (byte[]) v)
             );
             public static final SupportedType STRING = new SupportedType(true, String.class, "CHAR", "STRING",
-                    (s, i) -> (i instanceof String ? s.getString((String) i) : s.getString((int) i)),
+                    (s, i) -> s.getString(i),
                     (s, i, v) -> s.setString(i, (String) v)
             );
         }
@@ -97,6 +99,13 @@ public class SupportedTypes {
         return null;
     }
 
+    /**
+     * @param fixedLength Length of fixed type, or negative value for non-fixed type
+     */
+    public static SupportedType getFieldType(Class<?> type, int fixedLength) {
+        return getFieldType(type, fixedLength < 0 ? null : new FixedLength(fixedLength));
+    }
+
     public static SupportedType getAnyFieldType(Class<?> type) {
         for (SupportedType t : FIELD_TYPES)
             if (t.getType() == type || t.getPrimitiveType() == type)
@@ -128,6 +137,10 @@ public class SupportedTypes {
         }
 
         public Object read(ResultSet resultSet, Object index) throws SQLException {
+            return this.read.method(resultSet, index instanceof String ? resultSet.findColumn((String) index) : (int) index);
+        }
+
+        public Object read(ResultSet resultSet, int index) throws SQLException {
             return this.read.method(resultSet, index);
         }
 
@@ -137,7 +150,7 @@ public class SupportedTypes {
 
         @FunctionalInterface
         interface ReadAction {
-            Object method(ResultSet s, Object i) throws SQLException;
+            Object method(ResultSet s, int i) throws SQLException;
         }
 
         @FunctionalInterface
@@ -164,4 +177,19 @@ public class SupportedTypes {
             this.fixedAnnotation = fixedAnnotation;
         }
     }
+
+    @AllArgsConstructor
+    private static class FixedLength implements Fixed {
+        private final int value;
+
+        @Override
+        public int value() {
+            return value;
+        }
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Fixed.class;
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package com.rikonardo.kiorm.serialization;
+
+import lombok.Getter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Precompiled write statement of document schema: fixed SQL string and ordered binders for all its placeholders.
+ * Binding an instance walks the binders array, reading every field through its accessor and serializer.
+ */
+public class WritePlan<T> {
+    @Getter private final String sql;
+    private final FieldBinder[] binders;
+
+    WritePlan(String sql, List<DocumentParser.DocumentField> fields) {
+        this.sql = sql;
+        this.binders = new FieldBinder[fields.size()];
+        for (int i = 0; i < fields.size(); i++)
+            this.binders[i] = binder(fields.get(i));
+    }
+
+    /**
+     * @return Amount of placeholders, filled from one instance
+     */
+    public int getParameterCount() {
+        return binders.length;
+    }
+
+    public void bind(PreparedStatement preparedStatement, T instance) throws SQLException {
+        bind(preparedStatement, instance, 1);
+    }
+
+    /**
+     * Binds instance fields starting from specified placeholder index.
+     * @return Index of the next unbound placeholder
+     */
+    public int bind(PreparedStatement preparedStatement, T instance, int index) throws SQLException {
+        try {
+            for (FieldBinder binder : binders)
+                binder.bind(preparedStatement, index++, instance);
+            return index;
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static FieldBinder binder(DocumentParser.DocumentField field) {
+        FieldAccessor accessor = field.getAccessor();
+        SerializerMiddleware serializer = field.getSerializer();
+        SupportedTypes.SupportedType storageType = serializer.getStorageType();
+        if (!serializer.hasSerializer() && accessor.getType().isPrimitive()) {
+            Class<?> primitive = accessor.getType();
+            if (primitive == int.class) return (s, i, instance) -> s.setInt(i, accessor.getInt(instance));
+            if (primitive == long.class) return (s, i, instance) -> s.setLong(i, accessor.getLong(instance));
+            if (primitive == double.class) return (s, i, instance) -> s.setDouble(i, accessor.getDouble(instance));
+            if (primitive == float.class) return (s, i, instance) -> s.setFloat(i, accessor.getFloat(instance));
+            if (primitive == boolean.class) return (s, i, instance) -> s.setBoolean(i, accessor.getBoolean(instance));
+            if (primitive == short.class) return (s, i, instance) -> s.setShort(i, accessor.getShort(instance));
+            if (primitive == byte.class) return (s, i, instance) -> s.setByte(i, accessor.getByte(instance));
+        }
+        if (!serializer.hasSerializer())
+            return (s, i, instance) -> storageType.write(s, i, accessor.get(instance));
+        return (s, i, instance) -> storageType.write(s, i, serializer.serialize(accessor.get(instance)));
+    }
+
+    @FunctionalInterface
+    interface FieldBinder {
+        void bind(PreparedStatement s, int index, Object instance) throws SQLException, InvocationTargetException;
+    }
+}
@@ -0,0 +1,34 @@
+package com.rikonardo.kiorm.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Spreads keys over shards by hash. Hash doesn't depend on JVM: integer numbers are hashed by value regardless of their type,
+ * strings by UTF-8 bytes and binary keys by content.
+ */
+public class HashSharding implements ShardFunction {
+    @Override
+    public int shard(Object key, int shards) {
+        return Math.floorMod(mix(hash(key)), shards);
+    }
+
+    private static long hash(Object key) {
+        if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte)
+            return ((Number) key).longValue();
+        if (key instanceof byte[])
+            return Arrays.hashCode((byte[]) key);
+        if (key instanceof String)
+            return Arrays.hashCode(((String) key).getBytes(StandardCharsets.UTF_8));
+        return key.hashCode();
+    }
+
+    /**
+     * Finalizer of SplitMix64, so sequential keys land on different shards.
+     */
+    private static int mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return (int) (value ^ (value >>> 31));
+    }
+}
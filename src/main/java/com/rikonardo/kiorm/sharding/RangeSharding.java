@@ -0,0 +1,36 @@
+package com.rikonardo.kiorm.sharding;
+
+/**
+ * Splits keys into contiguous ranges. Shard {@code i} gets keys lower than {@code i}-th bound,
+ * keys greater than or equal to the last bound go to the last shard.
+ * Subclass it with no-args constructor, that passes bounds, for example {@code super(1_000_000L, 2_000_000L)} for three shards.
+ */
+public abstract class RangeSharding implements ShardFunction {
+    private final Comparable<?>[] bounds;
+
+    protected RangeSharding(Comparable<?>... bounds) {
+        this.bounds = bounds.clone();
+    }
+
+    @Override
+    public int shard(Object key, int shards) {
+        int shard = 0;
+        while (shard < bounds.length && compare(key, bounds[shard]) >= 0)
+            shard++;
+        return Math.min(shard, shards - 1);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object key, Comparable bound) {
+        if (key instanceof Number && bound instanceof Number) {
+            Number a = (Number) key, b = (Number) bound;
+            if (isIntegral(a) && isIntegral(b)) return Long.compare(a.longValue(), b.longValue());
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+        return Integer.compare(0, bound.compareTo(key));
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+    }
+}
@@ -0,0 +1,13 @@
+package com.rikonardo.kiorm.sharding;
+
+/**
+ * Maps shard key to one of database shards. Function must always return the same shard for equal keys.
+ */
+public interface ShardFunction {
+    /**
+     * @param key Storage value of shard key field (after serialization), never null
+     * @param shards Amount of shards
+     * @return Shard index, from 0 to {@code shards - 1}
+     */
+    int shard(Object key, int shards);
+}
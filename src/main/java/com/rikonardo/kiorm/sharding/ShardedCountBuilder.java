@@ -0,0 +1,57 @@
+package com.rikonardo.kiorm.sharding;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.queries.AbstractQueryWhere;
+import com.rikonardo.kiorm.queries.builders.QueryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Count query over sharded document class. Without condition on shard key, counts of all shards are queried in parallel and summed.
+ */
+public class ShardedCountBuilder<T> implements QueryBuilder.ReturnsLong {
+    private final ShardedKiORM db;
+    private final Class<T> target;
+
+    private AbstractQueryWhere where;
+
+    ShardedCountBuilder(ShardedKiORM db, Class<T> target) {
+        this.db = db;
+        this.target = target;
+    }
+
+    public ShardedCountBuilder<T> where(AbstractQueryWhere where) {
+        this.where = where;
+        return this;
+    }
+
+    public long exec() {
+        int shard = db.shardIndex(target, where);
+        if (shard >= 0) return db.getShards().get(shard).count(target).where(where).exec();
+        return ShardedKiORM.join(scatter());
+    }
+
+    private CompletableFuture<Long> scatter() {
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (KiORM shardDb : db.getShards())
+            futures.add(shardDb.count(target).where(where).execAsync());
+        return ShardedKiORM.gather(futures).thenApply(counts -> {
+            long total = 0;
+            for (long count : counts)
+                total += count;
+            return total;
+        });
+    }
+
+    /**
+     * Executes this query on executors of shards, see {@link KiORM#getExecutor()}. Results of shards are combined without blocking any executor.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<Long> execAsync() {
+        int shard = db.shardIndex(target, where);
+        if (shard >= 0) return db.getShards().get(shard).count(target).where(where).execAsync();
+        return scatter();
+    }
+}
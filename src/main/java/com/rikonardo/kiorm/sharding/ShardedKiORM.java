@@ -0,0 +1,240 @@
+package com.rikonardo.kiorm.sharding;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.annotations.Sharded;
+import com.rikonardo.kiorm.exceptions.InvalidDocumentClassException;
+import com.rikonardo.kiorm.queries.AbstractQueryWhere;
+import com.rikonardo.kiorm.queries.api.Param;
+import com.rikonardo.kiorm.queries.builders.*;
+import com.rikonardo.kiorm.serialization.DocumentParser;
+import com.rikonardo.kiorm.serialization.DocumentSchema;
+import com.rikonardo.kiorm.queries.parts.where.QueryWhereAnd;
+import com.rikonardo.kiorm.queries.parts.where.QueryWhereEquals;
+import lombok.Getter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spreads documents of classes with {@link Sharded} annotation over several databases.
+ * Instance queries and queries with equality condition on shard key go to one shard, other selects and counts
+ * are sent to all shards in parallel and their results are merged.
+ * All shards must use the same table and field name modifiers, modifiers of the first shard are used for routing.
+ */
+public class ShardedKiORM {
+    /**
+     * Databases of all shards, in order of shard indexes
+     */
+    @Getter private final List<KiORM> shards;
+
+    private final Map<Class<?>, ShardFunction> functions = new ConcurrentHashMap<>();
+
+    public ShardedKiORM(KiORM... shards) {
+        this(Arrays.asList(shards));
+    }
+
+    public ShardedKiORM(List<KiORM> shards) {
+        if (shards.isEmpty()) throw new IllegalArgumentException("At least one shard is required");
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+    }
+
+    /**
+     * Returns database, that stores documents with specified shard key.
+     * @param target Document class with {@link Sharded} annotation
+     * @param key Value of shard key field
+     * @return Database of the shard
+     */
+    public KiORM shard(Class<?> target, Object key) {
+        DocumentSchema<?> schema = schema(target);
+        return shards.get(route(target, schema.toStorageFieldValue(shardKey(target), key)));
+    }
+
+    /**
+     * @param instance Document instance of class with {@link Sharded} annotation
+     * @return Database of the shard, that stores this document
+     */
+    public KiORM shardOf(Object instance) {
+        Class<?> target = instance.getClass();
+        DocumentSchema<?> schema = schema(target);
+        String name = schema.toStorageFieldName(shardKey(target));
+        try {
+            for (DocumentParser.DocumentField field : schema.getFields())
+                if (field.getName().equals(name))
+                    return shards.get(route(target, field.getSerializer().serialize(field.read(instance))));
+        } catch (InvocationTargetException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        throw new InvalidDocumentClassException("Document " + target.getName() + " does not have shard key field " + shardKey(target));
+    }
+
+    /**
+     * Resolves shard, selected by where clause. Only equality condition on shard key, alone or as a part of {@code AND}, is recognized.
+     * @return Shard index, or -1 if query must be sent to all shards
+     */
+    int shardIndex(Class<?> target, AbstractQueryWhere where) {
+        QueryWhereEquals condition = findKeyCondition(shardKey(target), where);
+        if (condition == null) return -1;
+        return route(target, schema(target).toStorageFieldValue(condition.getField(), condition.getValue()));
+    }
+
+    private static QueryWhereEquals findKeyCondition(String key, AbstractQueryWhere where) {
+        if (where instanceof QueryWhereAnd) {
+            for (AbstractQueryWhere part : ((QueryWhereAnd) where).getQueries()) {
+                QueryWhereEquals condition = findKeyCondition(key, part);
+                if (condition != null) return condition;
+            }
+            return null;
+        }
+        if (!(where instanceof QueryWhereEquals)) return null;
+        QueryWhereEquals equals = (QueryWhereEquals) where;
+        if (!equals.getField().equals(key) || equals.getValue() == null || equals.getValue() instanceof Param) return null;
+        return equals;
+    }
+
+    private int route(Class<?> target, Object key) {
+        if (key == null) throw new IllegalArgumentException("Shard key of " + target.getName() + " can't be null");
+        int shard = function(target).shard(key, shards.size());
+        if (shard < 0 || shard >= shards.size())
+            throw new IllegalStateException("Sharding function of " + target.getName() + " returned shard " + shard + " out of " + shards.size());
+        return shard;
+    }
+
+    private ShardFunction function(Class<?> target) {
+        return functions.computeIfAbsent(target, type -> {
+            Class<? extends ShardFunction> function = annotation(type).function();
+            try {
+                return function.getConstructor().newInstance();
+            } catch (InvocationTargetException | NoSuchMethodException | IllegalAccessException | InstantiationException e) {
+                throw new InvalidDocumentClassException("Can't initialize sharding function " + function.getName() + ", it must have no-args constructor");
+            }
+        });
+    }
+
+    private static String shardKey(Class<?> target) {
+        return annotation(target).key();
+    }
+
+    private static Sharded annotation(Class<?> target) {
+        Sharded sharded = target.getAnnotation(Sharded.class);
+        if (sharded == null) throw new InvalidDocumentClassException("Document " + target.getName() + " doesn't have @Sharded annotation");
+        return sharded;
+    }
+
+    <T> DocumentSchema<T> schema(Class<T> target) {
+        KiORM db = shards.get(0);
+        return DocumentParser.schema(target, db.getTableNameModifier(), db.getFieldNameModifier());
+    }
+
+    /**
+     * Combines results of all shards without blocking. Resulting future fails, if any of shards fails.
+     */
+    static <R> CompletableFuture<List<R>> gather(List<CompletableFuture<R>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<R> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<R> future : futures)
+                results.add(future.join());
+            return results;
+        });
+    }
+
+    /**
+     * Waits for future in the calling thread. Exception of a failed shard is rethrown as is.
+     */
+    static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates SelectBuilder, that selects documents from all shards, or from one shard, if where clause has condition on shard key.
+     * @param target Document class with {@link Sharded} annotation
+     * @return Sharded {@code SELECT} query builder
+     */
+    public <T> ShardedSelectBuilder<T> select(Class<T> target) {
+        return new ShardedSelectBuilder<>(this, target);
+    }
+
+    /**
+     * Creates SelectOneBuilder on the shard of specified key.
+     * @param target Document class with {@link Sharded} annotation
+     * @param key Value of shard key field
+     * @return {@code SELECT} query builder
+     */
+    public <T> SelectOneBuilder<T> selectOne(Class<T> target, Object key) {
+        return shard(target, key).selectOne(target);
+    }
+
+    /**
+     * Creates CountBuilder, that sums counts of all shards, or counts on one shard, if where clause has condition on shard key.
+     * @param target Document class with {@link Sharded} annotation
+     * @return Sharded {@code COUNT} query builder
+     */
+    public <T> ShardedCountBuilder<T> count(Class<T> target) {
+        return new ShardedCountBuilder<>(this, target);
+    }
+
+    /**
+     * Creates InsertBuilder on the shard of document.
+     * @param target Document instance
+     * @return {@code INSERT} query builder
+     */
+    public <T> InsertBuilder<T> insert(T target) {
+        return shardOf(target).insert(target);
+    }
+
+    /**
+     * Creates UpsertBuilder on the shard of document.
+     * @param target Document instance
+     * @return {@code INSERT ... ON DUPLICATE KEY UPDATE} query builder
+     */
+    public <T> UpsertBuilder<T> upsert(T target) {
+        return shardOf(target).upsert(target);
+    }
+
+    /**
+     * Creates UpdateInstanceBuilder on the shard of document. Shard key of document must not be changed.
+     * @param target Document instance
+     * @return {@code UPDATE} query builder
+     */
+    public <T> UpdateInstanceBuilder<T> update(T target) {
+        return shardOf(target).update(target);
+    }
+
+    /**
+     * Creates DeleteInstanceBuilder on the shard of document.
+     * @param target Document instance
+     * @return {@code DELETE} query builder
+     */
+    public <T> DeleteInstanceBuilder<T> delete(T target) {
+        return shardOf(target).delete(target);
+    }
+
+    /**
+     * Creates table for specified document class on every shard, if it doesn't exist.
+     * @param target Document class
+     */
+    public <T> void createTableIfNotExist(Class<T> target) {
+        for (KiORM shard : shards)
+            shard.createTableIfNotExist(target);
+    }
+
+    /**
+     * Closes all shards, see {@link KiORM#close()}.
+     */
+    public void close() {
+        for (KiORM shard : shards)
+            shard.close();
+    }
+}
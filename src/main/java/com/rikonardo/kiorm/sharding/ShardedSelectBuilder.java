@@ -0,0 +1,216 @@
+package com.rikonardo.kiorm.sharding;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.exceptions.InvalidQueryException;
+import com.rikonardo.kiorm.queries.AbstractQueryOrder;
+import com.rikonardo.kiorm.queries.AbstractQueryWhere;
+import com.rikonardo.kiorm.queries.builders.QueryBuilder;
+import com.rikonardo.kiorm.queries.builders.SelectBuilder;
+import com.rikonardo.kiorm.queries.parts.order.QueryOrderAsc;
+import com.rikonardo.kiorm.queries.parts.order.QueryOrderDesc;
+import com.rikonardo.kiorm.queries.parts.order.QueryOrderSeveral;
+import com.rikonardo.kiorm.serialization.DocumentParser;
+import com.rikonardo.kiorm.serialization.DocumentSchema;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Select query over sharded document class. Without condition on shard key, query is sent to all shards in parallel,
+ * each shard returns up to {@code skip + count} documents, which are merged by order of this builder and limited again.
+ * Merged order compares storage values of fields in Java, so text fields are ordered by code points, not by collation of the database.
+ */
+public class ShardedSelectBuilder<T> implements QueryBuilder.ReturnsList {
+    private final ShardedKiORM db;
+    private final Class<T> target;
+
+    private AbstractQueryWhere where;
+    private AbstractQueryOrder order;
+    private int limitSkip = -1, limitCount = -1;
+
+    ShardedSelectBuilder(ShardedKiORM db, Class<T> target) {
+        this.db = db;
+        this.target = target;
+    }
+
+    public ShardedSelectBuilder<T> where(AbstractQueryWhere where) {
+        this.where = where;
+        return this;
+    }
+
+    public ShardedSelectBuilder<T> order(AbstractQueryOrder order) {
+        this.order = order;
+        return this;
+    }
+
+    public ShardedSelectBuilder<T> order(AbstractQueryOrder... order) {
+        this.order = new QueryOrderSeveral(Arrays.asList(order));
+        return this;
+    }
+
+    public ShardedSelectBuilder<T> limit(int count) {
+        this.limitSkip = -1;
+        this.limitCount = count;
+        return this;
+    }
+
+    public ShardedSelectBuilder<T> limit(int skip, int count) {
+        this.limitSkip = skip;
+        this.limitCount = count;
+        return this;
+    }
+
+    public List<T> exec() {
+        int shard = db.shardIndex(target, where);
+        if (shard >= 0) return configure(db.getShards().get(shard), limitSkip, limitCount).exec();
+        return ShardedKiORM.join(scatter());
+    }
+
+    private CompletableFuture<List<T>> scatter() {
+        List<Order> orders = orders();
+        int skip = Math.max(limitSkip, 0);
+        int count = limitCount < 0 ? -1 : (int) Math.min(Integer.MAX_VALUE, (long) skip + limitCount);
+
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        for (KiORM shardDb : db.getShards())
+            futures.add(configure(shardDb, -1, count).execAsync());
+        return ShardedKiORM.gather(futures).thenApply(shardResults -> merge(shardResults, orders));
+    }
+
+    /**
+     * Merges documents, selected from every shard, by order of this builder, and applies limit of this builder.
+     * @param shardResults Documents of every shard, each list sorted by order of this builder
+     * @return Merged documents
+     */
+    List<T> merge(List<List<T>> shardResults) {
+        return merge(shardResults, orders());
+    }
+
+    private List<T> merge(List<List<T>> shardResults, List<Order> orders) {
+        List<T> results = new ArrayList<>();
+        for (List<T> part : shardResults)
+            results.addAll(part);
+        if (!orders.isEmpty()) results = sort(results, orders);
+        if (limitCount < 0) return results;
+        int from = Math.min(Math.max(limitSkip, 0), results.size());
+        return new ArrayList<>(results.subList(from, (int) Math.min(results.size(), (long) from + limitCount)));
+    }
+
+    private List<Order> orders() {
+        List<Order> orders = new ArrayList<>();
+        if (order != null) flatten(db.schema(target), order, orders);
+        return orders;
+    }
+
+    private SelectBuilder<T> configure(KiORM shardDb, int skip, int count) {
+        SelectBuilder<T> builder = shardDb.select(target).where(where);
+        if (order != null) builder.order(order);
+        if (count >= 0) {
+            if (skip >= 0) builder.limit(skip, count);
+            else builder.limit(count);
+        }
+        return builder;
+    }
+
+    private static void flatten(DocumentSchema<?> schema, AbstractQueryOrder order, List<Order> orders) {
+        if (order instanceof QueryOrderSeveral) {
+            for (AbstractQueryOrder part : ((QueryOrderSeveral) order).getQueries())
+                flatten(schema, part, orders);
+            return;
+        }
+        String name;
+        boolean descending;
+        if (order instanceof QueryOrderAsc) {
+            name = ((QueryOrderAsc) order).getField();
+            descending = false;
+        } else if (order instanceof QueryOrderDesc) {
+            name = ((QueryOrderDesc) order).getField();
+            descending = true;
+        } else {
+            throw new InvalidQueryException("Order " + order.getClass().getName() + " can't be merged across shards");
+        }
+        String storageName = schema.toStorageFieldName(name);
+        for (DocumentParser.DocumentField field : schema.getFields()) {
+            if (field.getName().equals(storageName)) {
+                orders.add(new Order(field, descending));
+                return;
+            }
+        }
+        throw new InvalidQueryException("Document " + schema.getType().getName() + " does not have field " + name);
+    }
+
+    /**
+     * Sorts merged results by storage values of order fields. Rows of every shard are already sorted, so sort merges these runs.
+     */
+    private static <T> List<T> sort(List<T> results, List<Order> orders) {
+        List<Object[]> rows = new ArrayList<>(results.size());
+        try {
+            for (T document : results) {
+                Object[] row = new Object[orders.size() + 1];
+                for (int i = 0; i < orders.size(); i++) {
+                    DocumentParser.DocumentField field = orders.get(i).field;
+                    row[i] = field.getSerializer().serialize(field.read(document));
+                }
+                row[orders.size()] = document;
+                rows.add(row);
+            }
+        } catch (InvocationTargetException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        rows.sort((a, b) -> {
+            for (int i = 0; i < orders.size(); i++) {
+                int result = compare(a[i], b[i]);
+                if (result != 0) return orders.get(i).descending ? -result : result;
+            }
+            return 0;
+        });
+        List<T> sorted = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            @SuppressWarnings("unchecked")
+            T document = (T) row[orders.size()];
+            sorted.add(document);
+        }
+        return sorted;
+    }
+
+    /**
+     * Compares storage values like MySQL does: nulls first, binary values as unsigned bytes.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object a, Object b) {
+        if (a == null || b == null) return a == null ? (b == null ? 0 : -1) : 1;
+        if (a instanceof byte[] && b instanceof byte[]) {
+            byte[] x = (byte[]) a, y = (byte[]) b;
+            for (int i = 0; i < Math.min(x.length, y.length); i++) {
+                int result = Integer.compare(x[i] & 0xff, y[i] & 0xff);
+                if (result != 0) return result;
+            }
+            return Integer.compare(x.length, y.length);
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+
+    private static class Order {
+        private final DocumentParser.DocumentField field;
+        private final boolean descending;
+
+        private Order(DocumentParser.DocumentField field, boolean descending) {
+            this.field = field;
+            this.descending = descending;
+        }
+    }
+
+    /**
+     * Executes this query on executors of shards, see {@link KiORM#getExecutor()}. Results of shards are merged without blocking any executor.
+     * @return Future, completed with result of {@link #exec()}
+     */
+    public CompletableFuture<List<T>> execAsync() {
+        int shard = db.shardIndex(target, where);
+        if (shard >= 0) return configure(db.getShards().get(shard), limitSkip, limitCount).execAsync();
+        return scatter();
+    }
+}
@@ -1,27 +1,52 @@
 package com.rikonardo.kiorm.transactions;
 
 import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.exceptions.InvalidQueryException;
 import com.rikonardo.kiorm.exceptions.RuntimeSQLException;
 import com.rikonardo.kiorm.queries.builders.*;
 import com.rikonardo.kiorm.serialization.DocumentParser;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
-public class TransactionBuilder {
+public class TransactionBuilder implements AutoCloseable {
     private final KiORM database;
     private final DocumentParser.NameModifier tableNameModifier;
     private final DocumentParser.NameModifier fieldNameModifier;
 
     private final List<TransactionUnit> units = new ArrayList<>();
+    private final List<Runnable> completionActions = new ArrayList<>();
+    private final Map<String, Savepoint> savepoints = new HashMap<>();
+
+    /**
+     * Isolation level of this transaction, or -1 to use isolation level of connection.
+     */
+    private int isolation = -1;
+
+    /**
+     * JDBC batch, that is being collected during commit, and its SQL.
+     */
+    private PreparedStatement batchStatement;
+    private String batchSql;
 
     @Getter
     boolean running = false;
 
+    /**
+     * Connection, pinned by this transaction. It is borrowed lazily and held until the end of {@link #commit()}.
+     */
+    private Connection connection;
+
     public TransactionBuilder(KiORM database, DocumentParser.NameModifier tableNameModifier, DocumentParser.NameModifier fieldNameModifier) {
         this.database = database;
         this.tableNameModifier = tableNameModifier;
@@ -55,10 +80,26 @@ public class TransactionBuilder {
         return addUnit(new InsertBuilder<>(database, target, this.tableNameModifier, this.fieldNameModifier, this));
     }
 
+    public <T> InsertAllBuilder<T> insertAll(Collection<T> targets) {
+        return addUnit(new InsertAllBuilder<>(database, targets, this.tableNameModifier, this.fieldNameModifier, this));
+    }
+
+    public <T> UpsertBuilder<T> upsert(T target) {
+        return addUnit(new UpsertBuilder<>(database, target, this.tableNameModifier, this.fieldNameModifier, this));
+    }
+
+    public <T> UpsertAllBuilder<T> upsertAll(Collection<T> targets) {
+        return addUnit(new UpsertAllBuilder<>(database, targets, this.tableNameModifier, this.fieldNameModifier, this));
+    }
+
     public <T> UpdateInstanceBuilder<T> update(T target) {
         return addUnit(new UpdateInstanceBuilder<>(database, target, this.tableNameModifier, this.fieldNameModifier, this));
     }
 
+    public <T> UpdateAllBuilder<T> updateAll(Collection<T> targets) {
+        return addUnit(new UpdateAllBuilder<>(database, targets, this.tableNameModifier, this.fieldNameModifier, this));
+    }
+
     public <T> UpdateBuilder<T> update(Class<T> target) {
         return addUnit(new UpdateBuilder<>(database, target, this.tableNameModifier, this.fieldNameModifier, this));
     }
@@ -71,8 +112,130 @@ public class TransactionBuilder {
         return addUnit(new DeleteBuilder<>(database, target, this.tableNameModifier, this.fieldNameModifier, this));
     }
 
+    public <T> DeleteAllBuilder<T> deleteAll(Collection<T> targets) {
+        return addUnit(new DeleteAllBuilder<>(database, targets, this.tableNameModifier, this.fieldNameModifier, this));
+    }
+
+    public <T> DeleteByKeysBuilder<T> deleteByKeys(Class<T> target, Collection<?> keys) {
+        return addUnit(new DeleteByKeysBuilder<>(database, target, keys, this.tableNameModifier, this.fieldNameModifier, this));
+    }
+
+    /**
+     * Prepares statement, that is executed during commit. Preparing it borrows connection of this transaction right away,
+     * so transaction must be committed or closed with {@link #close()}, otherwise connection is never returned to the pool.
+     * @param sql SQL query
+     * @return Statement, which parameters should be set before commit
+     */
     public PreparedStatement statement(String sql) throws SQLException {
-        return addUnit(database.getConnection().prepareStatement(sql));
+        return addUnit(getConnection().prepareStatement(sql));
+    }
+
+    /**
+     * Sets isolation level of this transaction. Isolation level of connection is restored after commit.
+     * @param level One of {@code Connection.TRANSACTION_*} constants
+     */
+    public TransactionBuilder isolation(int level) {
+        this.isolation = level;
+        return this;
+    }
+
+    /**
+     * Adds savepoint to this transaction. Savepoint names must be unique within transaction.
+     * @param name Savepoint name
+     */
+    public TransactionBuilder savepoint(String name) {
+        units.add(new TransactionUnit.SavepointUnit(name, TransactionUnit.SavepointUnit.Action.SET));
+        return this;
+    }
+
+    /**
+     * Rolls back all changes, made after specified savepoint. Transaction continues and can be committed.
+     * @param name Name of savepoint, previously added to this transaction
+     */
+    public TransactionBuilder rollbackTo(String name) {
+        units.add(new TransactionUnit.SavepointUnit(name, TransactionUnit.SavepointUnit.Action.ROLLBACK));
+        return this;
+    }
+
+    /**
+     * Releases savepoint, so it can't be rolled back to anymore.
+     * @param name Name of savepoint, previously added to this transaction
+     */
+    public TransactionBuilder releaseSavepoint(String name) {
+        units.add(new TransactionUnit.SavepointUnit(name, TransactionUnit.SavepointUnit.Action.RELEASE));
+        return this;
+    }
+
+    /**
+     * Registers action, that runs once after this transaction is committed or failed.
+     * Used by queries to invalidate caches, once changes of transaction become visible to other connections.
+     * @param action Action
+     */
+    public void afterCompletion(Runnable action) {
+        completionActions.add(action);
+    }
+
+    /**
+     * Returns connection, pinned by this transaction, borrowing it if needed.
+     * During commit, pending JDBC batch is executed first, so statements, executed on returned connection, keep their order.
+     * @return JDBC connection, that must not be closed by the caller
+     * @throws RuntimeSQLException If pending batch fails
+     */
+    public Connection getConnection() {
+        if (this.connection == null)
+            this.connection = database.getConnection();
+        if (this.batchStatement != null) {
+            try {
+                flush();
+            } catch (SQLException e) {
+                throw new RuntimeSQLException(e);
+            }
+        }
+        return this.connection;
+    }
+
+    /**
+     * Adds statement to JDBC batch of this transaction. Used by query builders during commit instead of executing statement directly.
+     * Consecutive statements with the same SQL are sent to the database in one batch.
+     * @param sql SQL query
+     * @param binder Binder of statement values
+     * @throws IllegalStateException If transaction is not running
+     */
+    public void batch(String sql, StatementBinder binder) throws SQLException {
+        if (!this.running) throw new IllegalStateException("Statements can be batched only while transaction is committed");
+        if (this.batchStatement != null && !this.batchSql.equals(sql)) flush();
+        if (this.batchStatement == null) {
+            this.batchStatement = this.connection.prepareStatement(sql);
+            this.batchSql = sql;
+        }
+        binder.bind(this.batchStatement);
+        this.batchStatement.addBatch();
+    }
+
+    private void flush() throws SQLException {
+        PreparedStatement statement = this.batchStatement;
+        this.batchStatement = null;
+        this.batchSql = null;
+        try (PreparedStatement closeStatement = statement) {
+            closeStatement.executeBatch();
+        }
+    }
+
+    private void discardBatch() {
+        PreparedStatement statement = this.batchStatement;
+        this.batchStatement = null;
+        this.batchSql = null;
+        if (statement == null) return;
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // Connection is rolled back anyway
+        }
+    }
+
+    @FunctionalInterface
+    public interface StatementBinder {
+        void bind(PreparedStatement preparedStatement) throws SQLException;
     }
 
     static abstract class TransactionUnit {
@@ -86,7 +249,15 @@ public class TransactionBuilder {
             private final PreparedStatement statement;
         }
 
-        public void execute() throws SQLException {
+        @AllArgsConstructor
+        static class SavepointUnit extends TransactionUnit {
+            private final String name;
+            private final Action action;
+
+            enum Action { SET, ROLLBACK, RELEASE }
+        }
+
+        public void execute(TransactionBuilder transaction) throws SQLException {
             if (this instanceof QueryUnit) {
                 QueryUnit queryUnit = (QueryUnit) this;
                 QueryBuilder queryBuilder = queryUnit.queryBuilder;
@@ -94,6 +265,8 @@ public class TransactionBuilder {
                     ((QueryBuilder.ReturnsLong) queryBuilder).exec();
                 } else if (queryBuilder instanceof QueryBuilder.ReturnsInt) {
                     ((QueryBuilder.ReturnsInt) queryBuilder).exec();
+                } else if (queryBuilder instanceof QueryBuilder.ReturnsIntArray) {
+                    ((QueryBuilder.ReturnsIntArray) queryBuilder).exec();
                 } else if (queryBuilder instanceof QueryBuilder.ReturnsInstance) {
                     ((QueryBuilder.ReturnsInstance<?>) queryBuilder).exec();
                 } else if (queryBuilder instanceof QueryBuilder.ReturnsList) {
@@ -101,22 +274,132 @@ public class TransactionBuilder {
                 }
             } else if (this instanceof StatementUnit) {
                 StatementUnit statementUnit = (StatementUnit) this;
-                statementUnit.statement.execute();
+                transaction.getConnection();
+                try (PreparedStatement statement = statementUnit.statement) {
+                    statement.execute();
+                }
+            } else if (this instanceof SavepointUnit) {
+                SavepointUnit savepointUnit = (SavepointUnit) this;
+                Connection connection = transaction.getConnection();
+                if (savepointUnit.action == SavepointUnit.Action.SET) {
+                    if (transaction.savepoints.containsKey(savepointUnit.name))
+                        throw new InvalidQueryException("Savepoint " + savepointUnit.name + " already exists");
+                    transaction.savepoints.put(savepointUnit.name, connection.setSavepoint(savepointUnit.name));
+                    return;
+                }
+                Savepoint savepoint = transaction.savepoints.get(savepointUnit.name);
+                if (savepoint == null) throw new InvalidQueryException("Savepoint " + savepointUnit.name + " does not exist");
+                if (savepointUnit.action == SavepointUnit.Action.ROLLBACK) {
+                    connection.rollback(savepoint);
+                } else {
+                    connection.releaseSavepoint(savepoint);
+                    transaction.savepoints.remove(savepointUnit.name);
+                }
             }
         }
     }
 
+    /**
+     * Executes all queries of this transaction on one connection and commits them. Consecutive write queries with the same SQL
+     * are sent in one JDBC batch. If any query fails, transaction is rolled back. Auto-commit mode and isolation level of connection are restored.
+     * @throws RuntimeSQLException If transaction failed and was rolled back
+     */
     public void commit() {
+        Connection connection = getConnection();
         this.running = true;
+        Boolean autoCommit = null;
+        int previousIsolation = -1;
         try {
-            database.getConnection().setAutoCommit(false);
-            for (TransactionUnit unit : units) {
-                unit.execute();
+            autoCommit = connection.getAutoCommit();
+            if (this.isolation >= 0 && connection.getTransactionIsolation() != this.isolation) {
+                previousIsolation = connection.getTransactionIsolation();
+                connection.setTransactionIsolation(this.isolation);
+            }
+            connection.setAutoCommit(false);
+            try {
+                for (TransactionUnit unit : units) {
+                    unit.execute(this);
+                }
+                if (this.batchStatement != null) flush();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                discardBatch();
+                for (TransactionUnit unit : units) {
+                    if (unit instanceof TransactionUnit.StatementUnit) {
+                        try {
+                            ((TransactionUnit.StatementUnit) unit).statement.close();
+                        } catch (SQLException suppressed) {
+                            e.addSuppressed(suppressed);
+                        }
+                    }
+                }
+                try {
+                    connection.rollback();
+                } catch (SQLException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
             }
-            database.getConnection().setAutoCommit(true);
         } catch (SQLException e) {
             throw new RuntimeSQLException(e);
+        } finally {
+            this.running = false;
+            this.connection = null;
+            this.savepoints.clear();
+            try {
+                if (autoCommit != null) connection.setAutoCommit(autoCommit);
+                if (previousIsolation >= 0) connection.setTransactionIsolation(previousIsolation);
+            } catch (SQLException ignored) {
+                // Pooled connections are reset when returned anyway
+            }
+            try {
+                database.releaseConnection(null, connection);
+            } finally {
+                for (Runnable action : completionActions)
+                    action.run();
+                completionActions.clear();
+            }
         }
-        this.running = false;
+    }
+
+    /**
+     * Discards this transaction without committing it. Prepared statements are closed and connection, borrowed by
+     * {@link #statement(String)}, is returned to the pool. Does nothing after commit, so transaction can be used in try-with-resources.
+     * @throws RuntimeSQLException If a database access error occurs
+     */
+    @Override
+    public void close() {
+        if (this.running) throw new IllegalStateException("Transaction can't be closed while it is committed");
+        Connection connection = this.connection;
+        this.connection = null;
+        RuntimeSQLException error = null;
+        for (TransactionUnit unit : units) {
+            if (unit instanceof TransactionUnit.StatementUnit) {
+                try {
+                    ((TransactionUnit.StatementUnit) unit).statement.close();
+                } catch (SQLException e) {
+                    if (error == null) error = new RuntimeSQLException(e);
+                    else error.addSuppressed(e);
+                }
+            }
+        }
+        units.clear();
+        if (connection != null) {
+            try {
+                database.releaseReadConnection(null, connection);
+            } catch (RuntimeSQLException e) {
+                if (error == null) error = e;
+                else error.addSuppressed(e);
+            }
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * Commits this transaction on executor of the database instance, see {@link KiORM#getExecutor()}.
+     * @return Future, completed when transaction is committed
+     */
+    public CompletableFuture<Void> commitAsync() {
+        return CompletableFuture.runAsync(this::commit, database.getExecutor());
     }
 }
@@ -0,0 +1,82 @@
+package com.rikonardo.kiorm.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCacheTest {
+    private static EntityCache cache(int maxSize, long ttl) {
+        CacheConfig config = new CacheConfig();
+        config.setMaxSize(maxSize);
+        config.setTtl(ttl);
+        return new EntityCache(config);
+    }
+
+    @Test
+    void returnsCachedSnapshot() {
+        EntityCache cache = cache(10, 0);
+        Object[] snapshot = {1, "name"};
+        cache.put(1, snapshot, cache.getGeneration());
+        assertSame(snapshot, cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        EntityCache cache = cache(2, 0);
+        cache.put(1, new Object[]{1}, cache.getGeneration());
+        cache.put(2, new Object[]{2}, cache.getGeneration());
+        cache.get(1);
+        cache.put(3, new Object[]{3}, cache.getGeneration());
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(3));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void expiresAfterTtl() throws InterruptedException {
+        EntityCache cache = cache(10, 1);
+        cache.put(1, new Object[]{1}, cache.getGeneration());
+        Thread.sleep(10);
+        assertNull(cache.get(1));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void skipsSnapshotLoadedBeforeInvalidation() {
+        EntityCache cache = cache(10, 0);
+        long generation = cache.getGeneration();
+        cache.invalidate(1);
+        cache.put(1, new Object[]{1}, generation);
+        assertNull(cache.get(1));
+
+        generation = cache.getGeneration();
+        cache.clear();
+        cache.put(1, new Object[]{1}, generation);
+        assertNull(cache.get(1));
+
+        cache.put(1, new Object[]{1}, cache.getGeneration());
+        assertNotNull(cache.get(1));
+    }
+
+    @Test
+    void invalidatesSingleKey() {
+        EntityCache cache = cache(10, 0);
+        cache.put(1, new Object[]{1}, cache.getGeneration());
+        cache.put(2, new Object[]{2}, cache.getGeneration());
+        cache.invalidate(1);
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(2));
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    void rejectsEmptyCache() {
+        assertThrows(IllegalArgumentException.class, () -> cache(0, 0));
+    }
+}
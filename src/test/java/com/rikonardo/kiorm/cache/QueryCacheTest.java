@@ -0,0 +1,92 @@
+package com.rikonardo.kiorm.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+    private static final long TTL = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void returnsCachedResult() {
+        QueryCache cache = new QueryCache(10);
+        cache.put("players", "a", "result", 1, TTL, cache.getGeneration("players"));
+        assertEquals("result", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedByWeight() {
+        QueryCache cache = new QueryCache(5);
+        cache.put("players", "a", "a", 2, TTL, cache.getGeneration("players"));
+        cache.put("players", "b", "b", 2, TTL, cache.getGeneration("players"));
+        cache.get("a");
+        cache.put("players", "c", "c", 2, TTL, cache.getGeneration("players"));
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void skipsResultHeavierThanCache() {
+        QueryCache cache = new QueryCache(5);
+        cache.put("players", "a", "a", 6, TTL, cache.getGeneration("players"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void countsEmptyResultAsOneDocument() {
+        QueryCache cache = new QueryCache(2);
+        cache.put("players", "a", "a", 0, TTL, cache.getGeneration("players"));
+        cache.put("players", "b", "b", 0, TTL, cache.getGeneration("players"));
+        cache.put("players", "c", "c", 0, TTL, cache.getGeneration("players"));
+        assertEquals(2, cache.size());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void expiresAfterTtl() throws InterruptedException {
+        QueryCache cache = new QueryCache(10);
+        cache.put("players", "a", "a", 1, 1, cache.getGeneration("players"));
+        Thread.sleep(10);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void invalidatesOnlyResultsOfTable() {
+        QueryCache cache = new QueryCache(10);
+        cache.put("players", "a", "a", 1, TTL, cache.getGeneration("players"));
+        cache.put("teams", "b", "b", 1, TTL, cache.getGeneration("teams"));
+        cache.invalidate("players");
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+    }
+
+    @Test
+    void skipsResultLoadedBeforeInvalidation() {
+        QueryCache cache = new QueryCache(10);
+        long generation = cache.getGeneration("players");
+        long otherGeneration = cache.getGeneration("teams");
+        cache.invalidate("players");
+        cache.put("players", "a", "a", 1, TTL, generation);
+        cache.put("teams", "b", "b", 1, TTL, otherGeneration);
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+
+        generation = cache.getGeneration("players");
+        cache.clear();
+        cache.put("players", "a", "a", 1, TTL, generation);
+        assertNull(cache.get("a"));
+
+        cache.put("players", "a", "a", 1, TTL, cache.getGeneration("players"));
+        assertNotNull(cache.get("a"));
+    }
+}
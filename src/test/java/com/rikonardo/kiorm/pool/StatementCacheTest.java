@@ -0,0 +1,95 @@
+package com.rikonardo.kiorm.pool;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCacheTest {
+    private final ConnectionPool pool = new ConnectionPool("jdbc:mysql://localhost/test");
+    private final List<String> prepared = new ArrayList<>();
+    private final List<String> closed = new ArrayList<>();
+    private final Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+        if (!method.getName().equals("prepareStatement")) throw new UnsupportedOperationException(method.getName());
+        String sql = (String) args[0];
+        prepared.add(sql);
+        return statement(sql);
+    });
+
+    private PreparedStatement statement(String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+            if (method.getName().equals("close")) closed.add(sql);
+            return null;
+        });
+    }
+
+    private PreparedStatement prepare(StatementCache cache, String sql) throws SQLException {
+        return cache.prepare(connection, connection, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    @Test
+    void reusesReturnedStatement() throws SQLException {
+        StatementCache cache = new StatementCache(pool, 2);
+        PreparedStatement first = prepare(cache, "a");
+        first.close();
+        PreparedStatement second = prepare(cache, "a");
+        assertSame(first, second);
+        assertEquals(1, prepared.size());
+        assertEquals(1, pool.getStatementCacheHits());
+        assertEquals(1, pool.getStatementCacheMisses());
+        assertTrue(closed.isEmpty());
+    }
+
+    @Test
+    void doesNotShareStatementInUse() throws SQLException {
+        StatementCache cache = new StatementCache(pool, 2);
+        PreparedStatement first = prepare(cache, "a");
+        PreparedStatement second = prepare(cache, "a");
+        assertNotSame(first, second);
+        assertEquals(2, prepared.size());
+        second.close();
+        assertEquals(1, closed.size());
+    }
+
+    @Test
+    void closesEvictedStatement() throws SQLException {
+        StatementCache cache = new StatementCache(pool, 2);
+        prepare(cache, "a").close();
+        prepare(cache, "b").close();
+        prepare(cache, "a").close();
+        prepare(cache, "c").close();
+        assertEquals(1, closed.size());
+        assertEquals("b", closed.get(0));
+        prepare(cache, "a").close();
+        prepare(cache, "c").close();
+        assertEquals(3, prepared.size());
+    }
+
+    @Test
+    void closesEvictedStatementInUseWhenItIsReturned() throws SQLException {
+        StatementCache cache = new StatementCache(pool, 1);
+        PreparedStatement first = prepare(cache, "a");
+        prepare(cache, "b").close();
+        assertTrue(closed.isEmpty());
+        first.close();
+        assertEquals(1, closed.size());
+        assertEquals("a", closed.get(0));
+    }
+
+    @Test
+    void resetReturnsStatementsInUse() throws SQLException {
+        StatementCache cache = new StatementCache(pool, 2);
+        PreparedStatement first = prepare(cache, "a");
+        cache.reset();
+        assertSame(first, prepare(cache, "a"));
+        cache.clear();
+        assertEquals(1, closed.size());
+    }
+}
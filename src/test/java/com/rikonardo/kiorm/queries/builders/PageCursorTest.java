@@ -0,0 +1,69 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.annotations.Document;
+import com.rikonardo.kiorm.annotations.Field;
+import com.rikonardo.kiorm.annotations.PrimaryKey;
+import com.rikonardo.kiorm.exceptions.InvalidQueryException;
+import com.rikonardo.kiorm.queries.api.Order;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+    @Document("players")
+    public static class Player {
+        @PrimaryKey @Field("id") public long id;
+        @Field("name") public String name;
+        @Field("score") public int score;
+    }
+
+    private final KiORM db = new KiORM((DataSource) null);
+
+    @Test
+    void restoresPositionFromToken() {
+        PageCursor<Player> cursor = db.select(Player.class).order(Order.desc("score")).pages(10);
+        String token = cursor.encode(new Object[]{100, 5L});
+        assertEquals(token, db.select(Player.class).order(Order.desc("score")).pages(10, token).getToken());
+        assertArrayEquals(new Object[]{100, 5L}, cursor.decode(token));
+    }
+
+    @Test
+    void encodesAllKeyTypes() {
+        PageCursor<Player> cursor = db.select(Player.class).pages(10);
+        Object[] values = {null, "text", true, (byte) 1, (short) 2, 3, 4L, 5f, 6d, new byte[]{7, 8}};
+        assertArrayEquals(values, decode(cursor, values));
+    }
+
+    @Test
+    void tokenWithoutPositionStartsFromFirstPage() {
+        String token = db.select(Player.class).pages(10).getToken();
+        assertNull(db.select(Player.class).pages(10, token).decode(token));
+    }
+
+    @Test
+    void rejectsTokenOfOtherOrder() {
+        String token = db.select(Player.class).order(Order.desc("score")).pages(10).encode(new Object[]{100, 5L});
+        assertThrows(InvalidQueryException.class, () -> db.select(Player.class).order(Order.asc("score")).pages(10, token));
+        assertThrows(InvalidQueryException.class, () -> db.select(Player.class).order(Order.desc("name")).pages(10, token));
+        assertThrows(InvalidQueryException.class, () -> db.select(Player.class).pages(10, token));
+    }
+
+    @Test
+    void rejectsMalformedToken() {
+        assertThrows(InvalidQueryException.class, () -> db.select(Player.class).pages(10, "not a token"));
+        assertThrows(InvalidQueryException.class, () -> db.select(Player.class).pages(10, "AQ"));
+    }
+
+    /**
+     * Round-trips values through token of cursor with as many keys as there are values.
+     */
+    private static Object[] decode(PageCursor<Player> cursor, Object[] values) {
+        Object[] decoded = new Object[values.length];
+        for (int i = 0; i < values.length; i++)
+            decoded[i] = cursor.decode(cursor.encode(new Object[]{values[i]}))[0];
+        return decoded;
+    }
+}
@@ -0,0 +1,45 @@
+package com.rikonardo.kiorm.queries.builders;
+
+import com.rikonardo.kiorm.annotations.AutoIncrement;
+import com.rikonardo.kiorm.annotations.Document;
+import com.rikonardo.kiorm.annotations.Field;
+import com.rikonardo.kiorm.annotations.PrimaryKey;
+import com.rikonardo.kiorm.serialization.DocumentParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateAllBuilderTest {
+    @Document("players")
+    public static class Player {
+        @PrimaryKey @AutoIncrement @Field("id") public int id;
+        @Field("name") public String name;
+        @Field("score") public int score;
+    }
+
+    @Document("members")
+    public static class Member {
+        @PrimaryKey @Field("team") public int team;
+        @PrimaryKey @Field("player") public int player;
+        @Field("role") public String role;
+    }
+
+    @Test
+    void buildsCaseBySingleKey() {
+        assertEquals("UPDATE `players` SET "
+                + "`name` = CASE `id` WHEN ? THEN ? WHEN ? THEN ? ELSE `name` END, "
+                + "`score` = CASE `id` WHEN ? THEN ? WHEN ? THEN ? ELSE `score` END "
+                + "WHERE `id` IN (?, ?);",
+                UpdateAllBuilder.caseSql(DocumentParser.schema(Player.class, null, null), 2));
+    }
+
+    @Test
+    void buildsCaseByCompositeKey() {
+        assertEquals("UPDATE `members` SET "
+                + "`team` = CASE WHEN `team` = ? AND `player` = ? THEN ? WHEN `team` = ? AND `player` = ? THEN ? ELSE `team` END, "
+                + "`player` = CASE WHEN `team` = ? AND `player` = ? THEN ? WHEN `team` = ? AND `player` = ? THEN ? ELSE `player` END, "
+                + "`role` = CASE WHEN `team` = ? AND `player` = ? THEN ? WHEN `team` = ? AND `player` = ? THEN ? ELSE `role` END "
+                + "WHERE (`team`, `player`) IN ((?, ?), (?, ?));",
+                UpdateAllBuilder.caseSql(DocumentParser.schema(Member.class, null, null), 2));
+    }
+}
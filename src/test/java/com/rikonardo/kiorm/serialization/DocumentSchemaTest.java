@@ -0,0 +1,52 @@
+package com.rikonardo.kiorm.serialization;
+
+import com.rikonardo.kiorm.annotations.AutoIncrement;
+import com.rikonardo.kiorm.annotations.Document;
+import com.rikonardo.kiorm.annotations.Field;
+import com.rikonardo.kiorm.annotations.PrimaryKey;
+import com.rikonardo.kiorm.annotations.Unique;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentSchemaTest {
+    @Document("players")
+    public static class Player {
+        @PrimaryKey @AutoIncrement @Field("id") public int id;
+        @Field("name") public String name;
+        @Field("score") public int score;
+    }
+
+    @Document("accounts")
+    public static class Account {
+        @Unique @Field("email") public String email;
+        @Field("balance") public long balance;
+    }
+
+    @Test
+    void insertLeavesOutAutoIncrementKey() {
+        DocumentSchema<Player> schema = DocumentParser.schema(Player.class, null, null);
+        assertEquals("INSERT INTO `players` (`name`, `score`) VALUES (?, ?), (?, ?);", schema.insertSql(2));
+        assertEquals(2, schema.getInsertPlan().getParameterCount());
+    }
+
+    @Test
+    void upsertConflictsByAutoIncrementKey() {
+        DocumentSchema<Player> schema = DocumentParser.schema(Player.class, null, null);
+        assertEquals("INSERT INTO `players` (`id`, `name`, `score`) VALUES (?, ?, ?), (?, ?, ?) ON DUPLICATE KEY UPDATE "
+                + "`name` = VALUES(`name`), `score` = VALUES(`score`), `id` = LAST_INSERT_ID(`id`);",
+                schema.upsertSql(2, Arrays.asList(schema.getFields().get(1), schema.getFields().get(2))));
+        assertEquals(3, schema.getUpsertPlan().getParameterCount());
+    }
+
+    @Test
+    void upsertWithoutOverwrittenFieldsKeepsRow() {
+        DocumentSchema<Account> schema = DocumentParser.schema(Account.class, null, null);
+        assertEquals("INSERT INTO `accounts` (`email`, `balance`) VALUES (?, ?) ON DUPLICATE KEY UPDATE `email` = `email`;",
+                schema.upsertSql(1, Collections.emptyList()));
+        assertSame(schema.getInsertPlan(), schema.getUpsertPlan());
+    }
+}
@@ -0,0 +1,76 @@
+package com.rikonardo.kiorm.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardFunctionTest {
+    public static class ScoreSharding extends RangeSharding {
+        public ScoreSharding() {
+            super(100L, 200L);
+        }
+    }
+
+    public static class NameSharding extends RangeSharding {
+        public NameSharding() {
+            super("m");
+        }
+    }
+
+    @Test
+    void hashShardingIsStableAcrossKeyTypes() {
+        HashSharding sharding = new HashSharding();
+        for (int key = -50; key < 50; key++) {
+            int shard = sharding.shard(key, 4);
+            assertEquals(shard, sharding.shard((long) key, 4));
+            assertEquals(shard, sharding.shard((short) key, 4));
+            assertEquals(shard, sharding.shard((byte) key, 4));
+        }
+        assertEquals(sharding.shard("key", 4), sharding.shard(new String("key"), 4));
+        assertEquals(sharding.shard(new byte[]{1, 2, 3}, 4), sharding.shard(new byte[]{1, 2, 3}, 4));
+    }
+
+    @Test
+    void hashShardingSpreadsSequentialKeys() {
+        HashSharding sharding = new HashSharding();
+        int[] counts = new int[4];
+        Set<Integer> firstShards = new HashSet<>();
+        for (long key = 0; key < 4000; key++) {
+            int shard = sharding.shard(key, 4);
+            assertTrue(shard >= 0 && shard < 4);
+            counts[shard]++;
+            if (key < 16) firstShards.add(shard);
+        }
+        for (int count : counts)
+            assertTrue(count > 800, "Shard got only " + count + " of 4000 keys");
+        assertTrue(firstShards.size() > 1);
+    }
+
+    @Test
+    void rangeShardingRoutesByBounds() {
+        ScoreSharding sharding = new ScoreSharding();
+        assertEquals(0, sharding.shard(-1, 3));
+        assertEquals(0, sharding.shard(99, 3));
+        assertEquals(1, sharding.shard(100, 3));
+        assertEquals(1, sharding.shard(199L, 3));
+        assertEquals(2, sharding.shard(200, 3));
+        assertEquals(2, sharding.shard(Long.MAX_VALUE, 3));
+        assertEquals(1, sharding.shard(150.5, 3));
+    }
+
+    @Test
+    void rangeShardingSendsKeysAboveShardsToLastShard() {
+        assertEquals(1, new ScoreSharding().shard(500, 2));
+    }
+
+    @Test
+    void rangeShardingComparesStrings() {
+        NameSharding sharding = new NameSharding();
+        assertEquals(0, sharding.shard("alice", 2));
+        assertEquals(1, sharding.shard("m", 2));
+        assertEquals(1, sharding.shard("zed", 2));
+    }
+}
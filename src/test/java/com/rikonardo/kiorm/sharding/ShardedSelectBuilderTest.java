@@ -0,0 +1,85 @@
+package com.rikonardo.kiorm.sharding;
+
+import com.rikonardo.kiorm.KiORM;
+import com.rikonardo.kiorm.annotations.Document;
+import com.rikonardo.kiorm.annotations.Field;
+import com.rikonardo.kiorm.annotations.PrimaryKey;
+import com.rikonardo.kiorm.annotations.Sharded;
+import com.rikonardo.kiorm.exceptions.InvalidQueryException;
+import com.rikonardo.kiorm.queries.api.Order;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedSelectBuilderTest {
+    @Document("events")
+    @Sharded(key = "user")
+    public static class Event {
+        @PrimaryKey @Field("id") public long id;
+        @Field("user") public int user;
+        @Field("time") public long time;
+
+        public Event() {}
+
+        Event(long id, long time) {
+            this.id = id;
+            this.time = time;
+        }
+    }
+
+    private final ShardedKiORM db = new ShardedKiORM(new KiORM((DataSource) null), new KiORM((DataSource) null));
+
+    private static List<List<Event>> shards() {
+        return Arrays.asList(
+                Arrays.asList(new Event(1, 50), new Event(3, 30), new Event(5, 10)),
+                Arrays.asList(new Event(2, 40), new Event(4, 20))
+        );
+    }
+
+    private static List<Long> ids(List<Event> events) {
+        List<Long> ids = new ArrayList<>();
+        for (Event event : events)
+            ids.add(event.id);
+        return ids;
+    }
+
+    @Test
+    void mergesByOrder() {
+        List<Event> merged = db.select(Event.class).order(Order.desc("time")).merge(shards());
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), ids(merged));
+    }
+
+    @Test
+    void mergesBySeveralOrders() {
+        List<List<Event>> shards = Arrays.asList(
+                Arrays.asList(new Event(1, 10), new Event(3, 20)),
+                Arrays.asList(new Event(2, 10), new Event(4, 20))
+        );
+        List<Event> merged = db.select(Event.class).order(Order.asc("time"), Order.desc("id")).merge(shards);
+        assertEquals(Arrays.asList(2L, 1L, 4L, 3L), ids(merged));
+    }
+
+    @Test
+    void limitsMergedResults() {
+        assertEquals(Arrays.asList(1L, 2L), ids(db.select(Event.class).order(Order.desc("time")).limit(2).merge(shards())));
+        assertEquals(Arrays.asList(3L, 4L), ids(db.select(Event.class).order(Order.desc("time")).limit(2, 2).merge(shards())));
+        assertEquals(Arrays.asList(5L), ids(db.select(Event.class).order(Order.desc("time")).limit(4, 2).merge(shards())));
+        assertTrue(db.select(Event.class).order(Order.desc("time")).limit(10, 2).merge(shards()).isEmpty());
+    }
+
+    @Test
+    void keepsShardOrderWithoutOrder() {
+        assertEquals(Arrays.asList(1L, 3L, 5L, 2L, 4L), ids(db.select(Event.class).merge(shards())));
+        assertEquals(Arrays.asList(1L, 3L, 5L), ids(db.select(Event.class).limit(3).merge(shards())));
+    }
+
+    @Test
+    void rejectsUnknownOrderField() {
+        assertThrows(InvalidQueryException.class, () -> db.select(Event.class).order(Order.asc("missing")).merge(shards()));
+    }
+}